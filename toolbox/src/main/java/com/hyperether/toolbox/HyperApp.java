@@ -1,6 +1,14 @@
 package com.hyperether.toolbox;
 
+import android.app.ActivityManager;
+import android.app.Application;
 import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * Class for managing application related behavior and providing context
@@ -13,6 +21,7 @@ public class HyperApp {
     private static HyperApp instance;
     private Context context;
     private boolean debugActive;
+    private String processName;
 
     public static synchronized HyperApp getInstance() {
         if (instance == null) {
@@ -36,4 +45,65 @@ public class HyperApp {
     public boolean isDebugActive() {
         return debugActive;
     }
+
+    /**
+     * @return name of the current process, e.g. com.example:location, or null if unknown
+     */
+    public synchronized String getProcessName() {
+        if (processName == null)
+            processName = readProcessName();
+        return processName;
+    }
+
+    /**
+     * @return true if running in the main process of the application
+     */
+    public boolean isMainProcess() {
+        String name = getProcessName();
+        return name == null || context == null
+                || name.equals(context.getApplicationInfo().processName);
+    }
+
+    private String readProcessName() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P)
+            return Application.getProcessName();
+        String name = readCmdline();
+        if (name != null)
+            return name;
+        if (context == null)
+            return null;
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        List<ActivityManager.RunningAppProcessInfo> processes =
+                am != null ? am.getRunningAppProcesses() : null;
+        if (processes != null) {
+            int pid = Process.myPid();
+            for (ActivityManager.RunningAppProcessInfo info : processes) {
+                if (info.pid == pid)
+                    return info.processName;
+            }
+        }
+        return null;
+    }
+
+    private static String readCmdline() {
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream("/proc/self/cmdline");
+            byte[] buffer = new byte[256];
+            int length = in.read(buffer);
+            int end = 0;
+            while (end < length && buffer[end] != 0)
+                end++;
+            return end > 0 ? new String(buffer, 0, end, "UTF-8") : null;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
 }
@@ -2,6 +2,14 @@ package com.hyperether.toolbox;
 
 import android.content.Context;
 
+import com.hyperether.toolbox.graphic.HyperBitmapCache;
+import com.hyperether.toolbox.graphic.HyperBitmapMemoryGovernor;
+import com.hyperether.toolbox.graphic.HyperBitmapPool;
+import com.hyperether.toolbox.log.HyperLogCrashTail;
+import com.hyperether.toolbox.log.HyperLogRateLimiter;
+import com.hyperether.toolbox.log.HyperLogSegments;
+import com.hyperether.toolbox.storage.HyperDiskCache;
+
 /**
  * Class for creating toolbox configuration builder
  * <p>
@@ -13,11 +21,51 @@ public class HyperConfig {
     private HyperConfig(Builder builder, Context context) {
         HyperApp.getInstance().setContext(context);
         HyperApp.getInstance().setDebugActive(builder.debug);
+        HyperLog.getInstance().setLogRotation(builder.logSegmentSize,
+                builder.logSegmentAgeMs,
+                builder.logSegmentCount,
+                builder.logDiskQuota);
+        if (builder.logPermitsPerSecond > 0)
+            HyperLog.getInstance().setRateLimit(builder.logPermitsPerSecond, builder.logBurst);
+        HyperLog.getInstance().setCrashTailCapacity(builder.crashTailCapacity);
+        if (builder.crashTailCapacity > 0)
+            HyperLog.getInstance().installCrashHandler();
+        if (builder.logEndpoint != null)
+            HyperLog.getInstance().setLogShipping(builder.logEndpoint);
+        if (builder.logProcessAggregation)
+            HyperLog.getInstance().setProcessAggregation(true);
+        if (builder.bitmapCacheSize > 0) {
+            HyperBitmapCache.getInstance().setMaxSize(builder.bitmapCacheSize);
+            HyperBitmapCache.getInstance().setEnabled(true);
+        }
+        if (builder.bitmapPoolSize > 0) {
+            HyperBitmapPool.getInstance().setMaxSize(builder.bitmapPoolSize);
+            HyperBitmapPool.getInstance().setEnabled(true);
+        }
+        if (builder.bitmapMemoryGovernor)
+            HyperBitmapMemoryGovernor.getInstance().enable(context);
+        if (builder.imageDiskCacheSize > 0) {
+            HyperDiskCache.getInstance().setMaxSize(builder.imageDiskCacheSize);
+            HyperDiskCache.getInstance().setEnabled(true);
+        }
     }
 
     public static class Builder {
 
         private boolean debug = false;
+        private long logSegmentSize = HyperLogSegments.DEFAULT_SEGMENT_SIZE;
+        private long logSegmentAgeMs = HyperLogSegments.DEFAULT_SEGMENT_AGE_MS;
+        private int logSegmentCount = HyperLogSegments.DEFAULT_SEGMENT_COUNT;
+        private long logDiskQuota = HyperLogSegments.DEFAULT_DISK_QUOTA;
+        private double logPermitsPerSecond = 0;
+        private int logBurst = HyperLogRateLimiter.SUGGESTED_BURST;
+        private int crashTailCapacity = HyperLogCrashTail.DEFAULT_CAPACITY;
+        private String logEndpoint = null;
+        private boolean logProcessAggregation = false;
+        private int bitmapCacheSize = 0;
+        private long imageDiskCacheSize = 0;
+        private int bitmapPoolSize = 0;
+        private boolean bitmapMemoryGovernor = false;
 
         public HyperConfig build(Context context) {
             return new HyperConfig(this, context);
@@ -34,5 +82,138 @@ public class HyperConfig {
             this.debug = debug;
             return this;
         }
+
+        /**
+         * If not set defaults are 1MB segments, rotated every hour, 20 segments and 10MB quota
+         *
+         * @param segmentSize  max size of one {@link HyperLog} file segment in bytes
+         * @param segmentAgeMs max time one segment is written to
+         * @param segmentCount max number of segments kept
+         * @param diskQuota    max total size of all segments in bytes
+         *
+         * @return builder instance
+         */
+        public Builder setLogRotation(long segmentSize,
+                                      long segmentAgeMs,
+                                      int segmentCount,
+                                      long diskQuota) {
+            this.logSegmentSize = segmentSize;
+            this.logSegmentAgeMs = segmentAgeMs;
+            this.logSegmentCount = segmentCount;
+            this.logDiskQuota = diskQuota;
+            return this;
+        }
+
+        /**
+         * If not set {@link HyperLog} entries are not rate limited. To bound the cost of log
+         * storms only, use {@link HyperLogRateLimiter#SUGGESTED_PERMITS_PER_SECOND} and
+         * {@link HyperLogRateLimiter#SUGGESTED_BURST}.
+         *
+         * @param permitsPerSecond sustained {@link HyperLog} entries per second for one tag and
+         *                         method, zero or less disables the limit
+         * @param burst            entries allowed at once before the limit applies
+         *
+         * @return builder instance
+         */
+        public Builder setLogRateLimit(double permitsPerSecond, int burst) {
+            this.logPermitsPerSecond = permitsPerSecond;
+            this.logBurst = burst;
+            return this;
+        }
+
+        /**
+         * If not set default is 256 entries. Last {@link HyperLog} entries are kept in memory and
+         * written to crash-TIMESTAMP.txt in the log directory when the app crashes.
+         *
+         * @param capacity number of kept entries, 0 disables the crash tail and handler
+         *
+         * @return builder instance
+         */
+        public Builder setCrashTail(int capacity) {
+            this.crashTailCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * If not set logs are not shipped. ERROR and WARN {@link HyperLog} entries are spooled
+         * on disk and uploaded in gzip compressed batches when network is available.
+         *
+         * @param endpoint url log batches are POSTed to
+         *
+         * @return builder instance
+         */
+        public Builder setLogShipping(String endpoint) {
+            this.logEndpoint = endpoint;
+            return this;
+        }
+
+        /**
+         * If not set default value will be false and every process writes its own entries to
+         * the log file. Build the config in every process when enabled.
+         *
+         * @param aggregation If is true {@link HyperLog} entries of secondary processes are
+         *                    written to the log file by the main process
+         *
+         * @return builder instance
+         */
+        public Builder setLogProcessAggregation(boolean aggregation) {
+            this.logProcessAggregation = aggregation;
+            return this;
+        }
+
+        /**
+         * If not set bitmap cache is disabled and images are always decoded from source
+         *
+         * @param maxBytes max total bytes of bitmaps kept in {@link HyperBitmapCache}, e.g.
+         *                 {@link HyperBitmapCache#getDefaultSize()}, 0 disables the cache
+         *
+         * @return builder instance
+         */
+        public Builder setBitmapCache(int maxBytes) {
+            this.bitmapCacheSize = maxBytes;
+            return this;
+        }
+
+        /**
+         * If not set network images are downloaded on every decode
+         *
+         * @param maxBytes max size of downloaded and resized images kept in
+         *                 {@link HyperDiskCache}, e.g. {@link HyperDiskCache#DEFAULT_MAX_SIZE},
+         *                 0 disables the cache
+         *
+         * @return builder instance
+         */
+        public Builder setImageDiskCache(long maxBytes) {
+            this.imageDiskCacheSize = maxBytes;
+            return this;
+        }
+
+        /**
+         * If not set bitmaps are allocated for every decode and transform
+         *
+         * @param maxBytes max total bytes of unused bitmaps kept in {@link HyperBitmapPool} for
+         *                 reuse, e.g. {@link HyperBitmapPool#getDefaultSize()}, 0 disables the
+         *                 pool
+         *
+         * @return builder instance
+         */
+        public Builder setBitmapPool(int maxBytes) {
+            this.bitmapPoolSize = maxBytes;
+            return this;
+        }
+
+        /**
+         * If not set default value will be false
+         *
+         * @param governor If is true decodes are kept under a bitmap budget from the app
+         *                 memory class and caches are trimmed on memory pressure, see
+         *                 {@link HyperBitmapMemoryGovernor}
+         *
+         * @return builder instance
+         */
+        public Builder setBitmapMemoryGovernor(boolean governor) {
+            this.bitmapMemoryGovernor = governor;
+            return this;
+        }
     }
 }
@@ -1,15 +1,27 @@
 package com.hyperether.toolbox;
 
-import android.content.Context;
-import android.os.Build;
-import android.util.Log;
+import com.hyperether.toolbox.log.HyperLogCrashHandler;
+import com.hyperether.toolbox.log.HyperLogCrashTail;
+import com.hyperether.toolbox.log.HyperLogDispatcher;
+import com.hyperether.toolbox.log.HyperLogEntry;
+import com.hyperether.toolbox.log.HyperLogEvent;
+import com.hyperether.toolbox.log.HyperLogEventSink;
+import com.hyperether.toolbox.log.HyperLogExporter;
+import com.hyperether.toolbox.log.HyperLogFileSink;
+import com.hyperether.toolbox.log.HyperLogLevels;
+import com.hyperether.toolbox.log.HyperLogListenerSink;
+import com.hyperether.toolbox.log.HyperLogRateLimiter;
+import com.hyperether.toolbox.log.HyperLogRemoteSink;
+import com.hyperether.toolbox.log.HyperLogSegments;
+import com.hyperether.toolbox.log.HyperLogShipper;
+import com.hyperether.toolbox.log.HyperLogSink;
+import com.hyperether.toolbox.log.HyperLogTag;
+import com.hyperether.toolbox.log.HyperLogcatSink;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.IllegalFormatException;
+import java.util.List;
 import java.util.Locale;
 
 /*
@@ -19,22 +31,42 @@ import java.util.Locale;
  *
  * Created by Slobodan on 12/09/2017
  * Version 1.1 - 21.03.2020. - added listener
+ * Version 1.2 - 17.10.2026. - background binary rolling log files, HTML and text export
+ *                             ring buffer dispatcher with pluggable sinks
+ *                             offline spooled remote log shipping
+ *                             per tag log levels
+ *                             single writer for all app processes
  */
 
 public class HyperLog {
 
-    private static final String TAG = HyperLog.class.getSimpleName();
+    public static final int ERROR = 1;
+    public static final int WARN = 2;
+    public static final int DEBUG = 3;
+    public static final int VERBOSE = 4;
+    public static final int INFO = 5;
 
-    private static final int ERROR = 1;
-    private static final int WARN = 2;
-    private static final int DEBUG = 3;
-    private static final int VERBOSE = 4;
-    private static final int INFO = 5;
+    private static final long DEFAULT_FLUSH_TIMEOUT_MS = 5000;
 
     private static HyperLog instance = null;
-    private OnLogListener onLogListener;
+    private final HyperLogDispatcher dispatcher = new HyperLogDispatcher();
+    private final HyperLogcatSink logcatSink = new HyperLogcatSink();
+    private final HyperLogListenerSink listenerSink = new HyperLogListenerSink();
+    private final HyperLogEventSink eventSink = new HyperLogEventSink();
+    private final HyperLogFileSink fileSink = new HyperLogFileSink();
+    private final HyperLogRateLimiter rateLimiter = new HyperLogRateLimiter();
+    private final HyperLogLevels levels = new HyperLogLevels();
+    private HyperLogShipper shipper;
+    private HyperLogRemoteSink remoteSink;
+    private volatile HyperLogCrashTail crashTail =
+            new HyperLogCrashTail(HyperLogCrashTail.DEFAULT_CAPACITY);
 
     private HyperLog() {
+        dispatcher.addSink(logcatSink);
+        dispatcher.addSink(listenerSink);
+        dispatcher.addSink(eventSink);
+        dispatcher.addSink(fileSink);
+        dispatcher.addTicker(rateLimiter);
     }
 
     public static HyperLog getInstance() {
@@ -68,157 +100,760 @@ public class HyperLog {
         add(WARN, tag, method, msg);
     }
 
-    public void setOnLogListener(OnLogListener onLogListener) {
-        this.onLogListener = onLogListener;
+    /**
+     * Log message with the exception, stack trace is kept and fingerprinted
+     */
+    public void e(String tag, String method, String msg, Throwable ex) {
+        add(ERROR, tag, method, msg, ex);
     }
 
-    private void add(int level, String tag, String method, Throwable ex) {
-        String log = "";
+    /**
+     * Log message with the exception, stack trace is kept and fingerprinted
+     */
+    public void w(String tag, String method, String msg, Throwable ex) {
+        add(WARN, tag, method, msg, ex);
+    }
 
-        if (ex != null && ex.getMessage() != null)
-            log = ex.getMessage();
-        else if (ex != null && ex.toString() != null)
-            log = ex.toString();
+    /*
+     * Tag handle variants, see tag(String)
+     */
 
-        add(level, tag, method, log);
+    public void d(HyperLogTag tag, String method, String msg) {
+        add(DEBUG, tag, method, msg);
     }
 
-    private void add(int level, String tag, String methodName, String log) {
-        if (log == null)
-            return;
+    public void e(HyperLogTag tag, String method, String msg) {
+        add(ERROR, tag, method, msg);
+    }
+
+    public void e(HyperLogTag tag, String method, Exception msg) {
+        add(ERROR, tag, method, msg);
+    }
+
+    public void i(HyperLogTag tag, String method, String msg) {
+        add(INFO, tag, method, msg);
+    }
+
+    public void v(HyperLogTag tag, String method, String msg) {
+        add(VERBOSE, tag, method, msg);
+    }
+
+    public void w(HyperLogTag tag, String method, String msg) {
+        add(WARN, tag, method, msg);
+    }
+
+    public void e(HyperLogTag tag, String method, String msg, Throwable ex) {
+        add(ERROR, tag, method, msg, ex);
+    }
+
+    public void w(HyperLogTag tag, String method, String msg, Throwable ex) {
+        add(WARN, tag, method, msg, ex);
+    }
+
+    /*
+     * Lazy variants. Message is formatted or supplied only if the entry will be emitted, so a
+     * disabled call costs one level check. Primitive arguments are boxed only when formatting.
+     * Supplier variants are named *Lazy, so calls with a null message stay unambiguous.
+     */
+
+    public void d(String tag, String method, String format, long arg) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, format(format, arg));
+    }
+
+    public void d(String tag, String method, String format, double arg) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, format(format, arg));
+    }
+
+    public void d(String tag, String method, String format, Object arg) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, format(format, arg));
+    }
+
+    public void d(String tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, format(format, arg1, arg2));
+    }
+
+    public void dLazy(String tag, String method, MessageSupplier supplier) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, supplier.get());
+    }
+
+    public void v(String tag, String method, String format, long arg) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, format(format, arg));
+    }
+
+    public void v(String tag, String method, String format, double arg) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, format(format, arg));
+    }
+
+    public void v(String tag, String method, String format, Object arg) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, format(format, arg));
+    }
+
+    public void v(String tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, format(format, arg1, arg2));
+    }
+
+    public void vLazy(String tag, String method, MessageSupplier supplier) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, supplier.get());
+    }
+
+    public void i(String tag, String method, String format, long arg) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, format(format, arg));
+    }
+
+    public void i(String tag, String method, String format, double arg) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, format(format, arg));
+    }
+
+    public void i(String tag, String method, String format, Object arg) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, format(format, arg));
+    }
+
+    public void i(String tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, format(format, arg1, arg2));
+    }
+
+    public void iLazy(String tag, String method, MessageSupplier supplier) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, supplier.get());
+    }
+
+    public void w(String tag, String method, String format, long arg) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, format(format, arg));
+    }
+
+    public void w(String tag, String method, String format, double arg) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, format(format, arg));
+    }
+
+    public void w(String tag, String method, String format, Object arg) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, format(format, arg));
+    }
+
+    public void w(String tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, format(format, arg1, arg2));
+    }
+
+    public void wLazy(String tag, String method, MessageSupplier supplier) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, supplier.get());
+    }
+
+    public void e(String tag, String method, String format, long arg) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, format(format, arg));
+    }
+
+    public void e(String tag, String method, String format, double arg) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, format(format, arg));
+    }
+
+    public void e(String tag, String method, String format, Object arg) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, format(format, arg));
+    }
+
+    public void e(String tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, format(format, arg1, arg2));
+    }
+
+    public void eLazy(String tag, String method, MessageSupplier supplier) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, supplier.get());
+    }
+
+    /*
+     * Lazy tag handle variants
+     */
+
+    public void d(HyperLogTag tag, String method, String format, long arg) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, format(format, arg));
+    }
+
+    public void d(HyperLogTag tag, String method, String format, double arg) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, format(format, arg));
+    }
+
+    public void d(HyperLogTag tag, String method, String format, Object arg) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, format(format, arg));
+    }
+
+    public void d(HyperLogTag tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, format(format, arg1, arg2));
+    }
+
+    public void dLazy(HyperLogTag tag, String method, MessageSupplier supplier) {
+        if (accept(DEBUG, tag, method))
+            publish(DEBUG, tag, method, supplier.get());
+    }
+
+    public void v(HyperLogTag tag, String method, String format, long arg) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, format(format, arg));
+    }
+
+    public void v(HyperLogTag tag, String method, String format, double arg) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, format(format, arg));
+    }
+
+    public void v(HyperLogTag tag, String method, String format, Object arg) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, format(format, arg));
+    }
+
+    public void v(HyperLogTag tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, format(format, arg1, arg2));
+    }
+
+    public void vLazy(HyperLogTag tag, String method, MessageSupplier supplier) {
+        if (accept(VERBOSE, tag, method))
+            publish(VERBOSE, tag, method, supplier.get());
+    }
+
+    public void i(HyperLogTag tag, String method, String format, long arg) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, format(format, arg));
+    }
+
+    public void i(HyperLogTag tag, String method, String format, double arg) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, format(format, arg));
+    }
+
+    public void i(HyperLogTag tag, String method, String format, Object arg) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, format(format, arg));
+    }
+
+    public void i(HyperLogTag tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, format(format, arg1, arg2));
+    }
+
+    public void iLazy(HyperLogTag tag, String method, MessageSupplier supplier) {
+        if (accept(INFO, tag, method))
+            publish(INFO, tag, method, supplier.get());
+    }
+
+    public void w(HyperLogTag tag, String method, String format, long arg) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, format(format, arg));
+    }
+
+    public void w(HyperLogTag tag, String method, String format, double arg) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, format(format, arg));
+    }
+
+    public void w(HyperLogTag tag, String method, String format, Object arg) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, format(format, arg));
+    }
+
+    public void w(HyperLogTag tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, format(format, arg1, arg2));
+    }
+
+    public void wLazy(HyperLogTag tag, String method, MessageSupplier supplier) {
+        if (accept(WARN, tag, method))
+            publish(WARN, tag, method, supplier.get());
+    }
+
+    public void e(HyperLogTag tag, String method, String format, long arg) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, format(format, arg));
+    }
+
+    public void e(HyperLogTag tag, String method, String format, double arg) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, format(format, arg));
+    }
+
+    public void e(HyperLogTag tag, String method, String format, Object arg) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, format(format, arg));
+    }
+
+    public void e(HyperLogTag tag, String method, String format, Object arg1, Object arg2) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, format(format, arg1, arg2));
+    }
+
+    public void eLazy(HyperLogTag tag, String method, MessageSupplier supplier) {
+        if (accept(ERROR, tag, method))
+            publish(ERROR, tag, method, supplier.get());
+    }
+
+    /**
+     * Check if entry of given level would be emitted anywhere (logcat, listener or file).
+     * Use it to skip building expensive messages.
+     *
+     * @param level log level, one of {@link #ERROR}, {@link #WARN}, {@link #INFO},
+     *              {@link #DEBUG}, {@link #VERBOSE}
+     * @param tag   log tag
+     * @return true if entry would be emitted
+     */
+    public boolean isLoggable(int level, String tag) {
+        return isLoggable(level, levels.get(tag));
+    }
+
+    /**
+     * Same as {@link #isLoggable(int, String)} without the tag lookup
+     *
+     * @param level log level
+     * @param tag   tag handle from {@link #tag(String)}
+     * @return true if entry would be emitted
+     */
+    public boolean isLoggable(int level, HyperLogTag tag) {
+        if (!tag.isLoggable(level))
+            return false;
+        HyperLogCrashTail tail = crashTail;
+        if (tail != null && tail.isLoggable(level))
+            return true;
+        return tag.isOverridden() ? dispatcher.isLoggableForced(level)
+                : dispatcher.isLoggable(level);
+    }
 
-        String sLevel = "DEBUG";
-        String color = "#ffffff";
-        String logTag = tag + "." + methodName;
+    /**
+     * Resolve handle of a log tag. Keep it in a static field and pass it instead of the tag
+     * string, so the level check does not need a lookup.
+     *
+     * @param tag log tag
+     * @return tag handle, same instance for the same tag
+     */
+    public HyperLogTag tag(String tag) {
+        return levels.get(tag);
+    }
+
+    /**
+     * Set level of one tag at runtime. Entries of the tag below the level are dropped and
+     * entries at or above it are written also by logcat and file sinks that otherwise log only
+     * in debug mode, e.g. VERBOSE for one class in a release build.
+     *
+     * @param tag   log tag
+     * @param level lowest severity logged for the tag
+     */
+    public void setLevel(String tag, int level) {
+        levels.setLevel(tag, level);
+    }
+
+    /**
+     * Remove level set with {@link #setLevel(String, int)}, tag uses default level again
+     *
+     * @param tag log tag
+     */
+    public void clearLevel(String tag) {
+        levels.clearLevel(tag);
+    }
+
+    /**
+     * Set level for tags without their own level. Default is {@link #VERBOSE}, which leaves
+     * filtering to the sinks.
+     *
+     * @param level lowest severity logged
+     */
+    public void setDefaultLevel(int level) {
+        levels.setDefaultLevel(level);
+    }
+
+    /**
+     * @return level table used by this log
+     */
+    public HyperLogLevels getLevels() {
+        return levels;
+    }
+
+    /**
+     * Severity order of levels, lower is more severe. Level constants are not ordered by
+     * severity, use this to compare them.
+     *
+     * @param level log level
+     * @return 0 for ERROR up to 4 for VERBOSE
+     */
+    public static int priority(int level) {
         switch (level) {
             case ERROR:
-                forwardLog(level, "Class: " + tag + " Method: " +
-                        methodName + " msg: " + log);
-                Log.e(logTag, log);
-                color = "#ffb3b4";
-                sLevel = "ERROR";
-                break;
+                return 0;
             case WARN:
-                forwardLog(level, "Class: " + tag + " Method: " +
-                        methodName + " msg: " + log);
-                if (HyperApp.getInstance().isDebugActive())
-                    Log.w(logTag, log);
-                color = "#ffffb4";
-                sLevel = "WARN";
-                break;
+                return 1;
+            case INFO:
+                return 2;
             case DEBUG:
-                if (HyperApp.getInstance().isDebugActive())
-                    Log.d(logTag, log);
-                color = "#ffccfe";
-                sLevel = "DEBUG";
-                break;
+                return 3;
             case VERBOSE:
-                if (HyperApp.getInstance().isDebugActive())
-                    Log.v(logTag, log);
-                sLevel = "VERBOSE";
-                color = "#b3ffb4";
-                break;
-            case INFO:
-                forwardLog(level, "Class: " + tag + " Method: " +
-                        methodName + " msg: " + log);
-                if (HyperApp.getInstance().isDebugActive())
-                    Log.i(logTag, log);
-                color = "#b3b3fe";
-                sLevel = "INFO";
-                break;
+            default:
+                return 4;
         }
+    }
 
-        try {
-            if (HyperApp.getInstance().isDebugActive())
-                saveToFile(sLevel, tag, methodName, log, color);
-        } catch (IOException e) {
-            if (HyperApp.getInstance().isDebugActive()) {
-                e.printStackTrace();
-            }
+    /**
+     * Listener receives ERROR, WARN and INFO entries on the log dispatcher thread
+     *
+     * @param onLogListener listener or null to remove
+     */
+    public void setOnLogListener(OnLogListener onLogListener) {
+        listenerSink.setOnLogListener(onLogListener);
+    }
+
+    /**
+     * Batch listener receives structured ERROR, WARN and INFO events, one list per dispatcher
+     * batch. Nothing is built while no listener is set.
+     *
+     * @param onLogBatchListener listener or null to remove
+     */
+    public void setOnLogBatchListener(OnLogBatchListener onLogBatchListener) {
+        eventSink.setOnLogBatchListener(onLogBatchListener);
+    }
+
+    /**
+     * Add custom destination for log entries, e.g. in-memory tail of the last entries
+     *
+     * @param sink sink with its own level filter
+     */
+    public void addSink(HyperLogSink sink) {
+        dispatcher.addSink(sink);
+    }
+
+    public void removeSink(HyperLogSink sink) {
+        dispatcher.removeSink(sink);
+    }
+
+    public HyperLogcatSink getLogcatSink() {
+        return logcatSink;
+    }
+
+    public HyperLogListenerSink getListenerSink() {
+        return listenerSink;
+    }
+
+    public HyperLogEventSink getEventSink() {
+        return eventSink;
+    }
+
+    public HyperLogFileSink getFileSink() {
+        return fileSink;
+    }
+
+    /**
+     * Ship ERROR and WARN entries to a remote endpoint. Entries are spooled to the cache
+     * directory and uploaded as gzip compressed JSON line batches when network is available.
+     *
+     * @param endpoint url batches are POSTed to, null stops shipping
+     * @return shipper for further configuration or null if shipping is stopped
+     */
+    public synchronized HyperLogShipper setLogShipping(String endpoint) {
+        return setLogShipper(endpoint != null ? new HyperLogShipper(endpoint) : null);
+    }
+
+    /**
+     * Ship ERROR and WARN entries with a configured or subclassed shipper. Previous shipper is
+     * shut down.
+     *
+     * @param logShipper shipper to use, null stops shipping
+     * @return given shipper
+     */
+    public synchronized HyperLogShipper setLogShipper(HyperLogShipper logShipper) {
+        if (shipper != null) {
+            dispatcher.removeSink(shipper);
+            dispatcher.removeTicker(shipper);
+            shipper.shutdown();
+            shipper = null;
         }
+        if (logShipper != null) {
+            shipper = logShipper;
+            dispatcher.addSink(shipper);
+            dispatcher.addTicker(shipper);
+        }
+        return shipper;
     }
 
-    private void forwardLog(int level, String msg) {
-        String msgType = " ";
-        switch (level) {
-            case ERROR:
-                msgType = " ERROR ";
-                break;
-            case WARN:
-                msgType = " WARN ";
-                break;
-            case DEBUG:
-                msgType = " DEBUG ";
-                break;
-            case VERBOSE:
-                msgType = " VERBOSE ";
-                break;
-            case INFO:
-                msgType = " INFO ";
-                break;
+    /**
+     * @return remote log shipper or null if shipping is not set
+     */
+    public synchronized HyperLogShipper getLogShipper() {
+        return shipper;
+    }
+
+    /**
+     * Write log files of all app processes from the main process only. Call it in every process,
+     * e.g. from Application.onCreate. In secondary processes, like one running
+     * {@link com.hyperether.toolbox.location.HyperLocationService}, file entries are forwarded to
+     * {@link com.hyperether.toolbox.log.HyperLogService} instead of written directly, so entries
+     * do not interleave and only one file handle is open. In the main process it does nothing.
+     * Call it before anything is logged in the process.
+     *
+     * @param enabled true to forward, false to write files from this process again
+     */
+    public synchronized void setProcessAggregation(boolean enabled) {
+        if (HyperApp.getInstance().isMainProcess())
+            return;
+        if (enabled && remoteSink == null) {
+            remoteSink = new HyperLogRemoteSink();
+            dispatcher.removeSink(fileSink);
+            dispatcher.addSink(remoteSink);
+            remoteSink.connect();
+        } else if (!enabled && remoteSink != null) {
+            dispatcher.removeSink(remoteSink);
+            remoteSink.disconnect();
+            remoteSink = null;
+            dispatcher.addSink(fileSink);
         }
+    }
+
+    /**
+     * @return dispatcher delivering entries to the sinks
+     */
+    public HyperLogDispatcher getDispatcher() {
+        return dispatcher;
+    }
 
-        String formattedMsg = "DEVICE: " + Build.MODEL + msgType + "MESSAGE: " + msg;
-        if (onLogListener != null) {
-            onLogListener.onLog(formattedMsg);
+    /**
+     * Block until all log entries added so far are written by all sinks
+     *
+     * @return true if everything is written
+     */
+    public boolean flush() {
+        return dispatcher.flush(DEFAULT_FLUSH_TIMEOUT_MS);
+    }
+
+    /**
+     * Block until all log entries added so far are written by all sinks
+     *
+     * @param timeoutMs max time to wait
+     * @return true if everything is written
+     */
+    public boolean flush(long timeoutMs) {
+        return dispatcher.flush(timeoutMs);
+    }
+
+    /**
+     * Write pending log entries, close all sinks and stop the log thread. Logging can continue
+     * after this call, the thread is started again on the next entry.
+     */
+    public void shutdown() {
+        dispatcher.shutdown(DEFAULT_FLUSH_TIMEOUT_MS);
+    }
+
+    /**
+     * Set size of the in-memory crash tail. Tail keeps the last entries even in release builds
+     * and is written to the log directory by the uncaught exception handler.
+     *
+     * @param capacity number of kept entries, 0 disables the tail
+     */
+    public void setCrashTailCapacity(int capacity) {
+        crashTail = capacity > 0 ? new HyperLogCrashTail(capacity) : null;
+    }
+
+    /**
+     * @return crash tail or null if disabled
+     */
+    public HyperLogCrashTail getCrashTail() {
+        return crashTail;
+    }
+
+    /**
+     * Install uncaught exception handler that dumps the crash tail before the app dies.
+     * Previous handler is still called after the dump.
+     */
+    public void installCrashHandler() {
+        HyperLogCrashHandler.install();
+    }
+
+    /**
+     * Limit entries per tag and method. Entries over the limit are dropped before any sink
+     * sees them and reported every few seconds as one "N messages suppressed" entry. Not
+     * limited by default.
+     *
+     * @param permitsPerSecond sustained entries per second for one tag and method, zero or less
+     *                         disables the limit
+     * @param burst            entries allowed at once before the limit applies
+     */
+    public void setRateLimit(double permitsPerSecond, int burst) {
+        rateLimiter.setRateLimit(permitsPerSecond, burst);
+    }
+
+    /**
+     * Keep only a random fraction of entries of given level, e.g. 0.1 for VERBOSE
+     *
+     * @param level      log level
+     * @param sampleRate fraction of entries that are kept, from 0 to 1
+     */
+    public void setSampleRate(int level, float sampleRate) {
+        rateLimiter.setSampleRate(level, sampleRate);
+    }
+
+    /**
+     * Set log file rotation. Closed segments are gzip compressed in background and the oldest
+     * ones are deleted when segment count or disk quota is exceeded.
+     *
+     * @param segmentSize  max size of one segment in bytes
+     * @param segmentAgeMs max time one segment is written to
+     * @param segmentCount max number of segments
+     * @param diskQuota    max total size of all segments in bytes
+     */
+    public void setLogRotation(long segmentSize,
+                               long segmentAgeMs,
+                               int segmentCount,
+                               long diskQuota) {
+        fileSink.getSegments().setLimits(segmentSize, segmentAgeMs, segmentCount, diskQuota);
+    }
+
+    /**
+     * Export all log segments to log.html in the log directory
+     *
+     * @return exported file or null if log storage is not available
+     * @throws IOException on read or write error
+     */
+    public File exportHtml() throws IOException {
+        return export("log.html", true);
+    }
+
+    /**
+     * Export all log segments to log.txt in the log directory
+     *
+     * @return exported file or null if log storage is not available
+     * @throws IOException on read or write error
+     */
+    public File exportText() throws IOException {
+        return export("log.txt", false);
+    }
+
+    private File export(String fileName, boolean html) throws IOException {
+        File dir = HyperLogSegments.getDir();
+        if (dir == null)
+            return null;
+        flush();
+        List<File> segments = HyperLogSegments.list();
+        File target = new File(dir, fileName);
+        if (html)
+            HyperLogExporter.exportHtml(segments, target);
+        else
+            HyperLogExporter.exportText(segments, target);
+        return target;
+    }
+
+    private void add(int level, String tag, String method, Throwable ex) {
+        add(level, levels.get(tag), method, ex);
+    }
+
+    private void add(int level, HyperLogTag handle, String method, Throwable ex) {
+        if (!accept(level, handle, method))
+            return;
+        String log = "";
+
+        if (ex != null && ex.getMessage() != null)
+            log = ex.getMessage();
+        else if (ex != null && ex.toString() != null)
+            log = ex.toString();
+
+        publish(level, handle, method, log, ex);
+    }
+
+    private void add(int level, String tag, String method, String msg, Throwable ex) {
+        add(level, levels.get(tag), method, msg, ex);
+    }
+
+    private void add(int level, HyperLogTag tag, String method, String msg, Throwable ex) {
+        if (ex == null) {
+            add(level, tag, method, msg);
+            return;
         }
+        if (!accept(level, tag, method))
+            return;
+        publish(level, tag, method, msg != null ? msg : String.valueOf(ex), ex);
+    }
+
+    private void add(int level, String tag, String methodName, String log) {
+        if (log != null && accept(level, tag, methodName))
+            publish(level, tag, methodName, log);
+    }
+
+    private void add(int level, HyperLogTag tag, String methodName, String log) {
+        if (log != null && accept(level, tag, methodName))
+            publish(level, tag, methodName, log, null);
+    }
+
+    private boolean accept(int level, String tag, String methodName) {
+        return accept(level, levels.get(tag), methodName);
     }
 
-    private void saveToFile(String sLevel,
-                            String tag,
-                            String method,
-                            String log,
-                            String color) throws IOException {
+    private boolean accept(int level, HyperLogTag tag, String methodName) {
+        return isLoggable(level, tag)
+                && rateLimiter.allow(level, tag.getName(), methodName, tag.isOverridden());
+    }
 
-        StringBuilder htmlStringBuilder = new StringBuilder();
+    private void publish(int level, String tag, String methodName, String log) {
+        publish(level, levels.get(tag), methodName, log, null);
+    }
 
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd-HH:mm:ss.SSS", Locale.getDefault());
-        Date resultdate = new Date(System.currentTimeMillis());
-        String date = sdf.format(resultdate);
+    private void publish(int level, HyperLogTag tag, String methodName, String log) {
+        publish(level, tag, methodName, log, null);
+    }
 
-        Context context = HyperApp.getInstance().getApplicationContext();
-        File logFile = new File(context.getExternalFilesDir(null), "log.html");
-        if (!logFile.exists()) {
-            htmlStringBuilder.append(htmlTemplate());
-        } else if (logFile.length() > 10485760) {
-            boolean del = logFile.delete();
-            Log.i(TAG, "saveToFile: del:" + del);
-            htmlStringBuilder.append(htmlTemplate());
+    private void publish(int level, HyperLogTag tag, String methodName, String log,
+                         Throwable ex) {
+        if (log == null)
+            return;
+        long now = System.currentTimeMillis();
+        String name = tag.getName();
+        HyperLogCrashTail tail = crashTail;
+        if (tail != null && tail.isLoggable(level))
+            tail.record(now, level, name, methodName, log);
+        boolean forced = tag.isOverridden();
+        if (forced ? dispatcher.isLoggableForced(level) : dispatcher.isLoggable(level))
+            dispatcher.publish(now, level, name, methodName, log, ex,
+                    Thread.currentThread().getName(), forced ? HyperLogEntry.FLAG_FORCED : 0);
+    }
+
+    private static String format(String format, Object... args) {
+        try {
+            return String.format(Locale.US, format, args);
+        } catch (IllegalFormatException e) {
+            return format;
         }
-        String c = "<tr BGCOLOR=\"" + color + "\">";
-        String d = "<td>" + date + "</td>";
-        String lev = "<td>" + sLevel + "</td>";
-        String t = "<td>" + tag + "</td>";
-        String m = "<td>" + method + "</td>";
-        String l = "<td>" + log + "</td></tr>";
-
-        htmlStringBuilder.append(c);
-        htmlStringBuilder.append(d);
-        htmlStringBuilder.append(lev);
-        htmlStringBuilder.append(t);
-        htmlStringBuilder.append(m);
-        htmlStringBuilder.append(l);
-
-        BufferedWriter bw = new BufferedWriter(new FileWriter(logFile, true));
-        bw.append(htmlStringBuilder.toString());
-        bw.newLine();
-        bw.close();
-    }
-
-    private StringBuilder htmlTemplate() {
-        StringBuilder htmlStringBuilder = new StringBuilder();
-        htmlStringBuilder.append("<html><head><title>Hyper logs</title></head>");
-        htmlStringBuilder.append("<body><h1>Logs</h1>");
-        htmlStringBuilder.append("<table border=\"1\" bordercolor=\"#000000\">");
-        htmlStringBuilder.append("<tr BGCOLOR=\"#d9d9d9\"><td><b>Date</b></td>");
-        htmlStringBuilder.append("<td><b>Level</b></td>");
-        htmlStringBuilder.append("<td><b>Tag</b></td>");
-        htmlStringBuilder.append("<td><b>Method</b></td>");
-        htmlStringBuilder.append("<td><b>Message</b></td></tr>");
-        return htmlStringBuilder;
     }
 
     public interface OnLogListener {
         void onLog(String msg);
     }
+
+    /**
+     * Receives structured log events in batches, on the log dispatcher thread
+     */
+    public interface OnLogBatchListener {
+        void onLogs(List<HyperLogEvent> events);
+    }
+
+    /**
+     * Supplies log message only when entry is emitted
+     */
+    public interface MessageSupplier {
+        String get();
+    }
 }
@@ -0,0 +1,241 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.util.LruCache;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Memory LRU cache of decoded bitmaps, bounded by bitmap bytes. Used by
+ * {@link HyperImageProcessing} decode methods when enabled, keyed by source, required width and
+ * bitmap config.
+ * <p>
+ * Cached bitmaps are shared, callers must not recycle or modify them while the cache is enabled.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperBitmapCache {
+
+    private static HyperBitmapCache instance;
+
+    private LruCache<String, Bitmap> cache;
+    // bitmaps ever shared through the cache, callers may still hold them after eviction, so
+    // they are never given to HyperBitmapPool. Bitmap keeps identity equality.
+    private final Set<Bitmap> shared =
+            Collections.newSetFromMap(new WeakHashMap<Bitmap, Boolean>());
+    private volatile boolean enabled;
+    private int hitCount;
+    private int missCount;
+
+    private HyperBitmapCache() {
+        cache = createCache(getDefaultSize());
+    }
+
+    public static synchronized HyperBitmapCache getInstance() {
+        if (instance == null) {
+            instance = new HyperBitmapCache();
+        }
+        return instance;
+    }
+
+    /**
+     * @return default max size, 1/8 of the max heap
+     */
+    public static int getDefaultSize() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+    }
+
+    /**
+     * Build cache key
+     *
+     * @param source   file path, resource id, uri or url of the image
+     * @param reqWidth required width passed to the decode method
+     * @param config   config of decoded bitmap
+     * @return key
+     */
+    public static String key(String source, int reqWidth, Bitmap.Config config) {
+        return source + "#" + reqWidth + "#" + config;
+    }
+
+    /**
+     * If not enabled {@link HyperImageProcessing} always decodes from source. Disabled by
+     * default.
+     *
+     * @param enabled true to look up decoded bitmaps in this cache
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled)
+            clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set max size and drop all cached bitmaps
+     *
+     * @param maxBytes max total bytes of cached bitmaps
+     */
+    public synchronized void setMaxSize(int maxBytes) {
+        cache.evictAll();
+        cache = createCache(Math.max(1, maxBytes));
+    }
+
+    /**
+     * @param key key from {@link #key(String, int, Bitmap.Config)}
+     * @return cached bitmap or null
+     */
+    public synchronized Bitmap get(String key) {
+        Bitmap bitmap = lookup(key);
+        if (bitmap != null)
+            hitCount++;
+        else
+            missCount++;
+        return bitmap;
+    }
+
+    /**
+     * Look up without counting a miss, for checks followed by a decode that calls
+     * {@link #get(String)} again. A hit is counted.
+     *
+     * @param key key from {@link #key(String, int, Bitmap.Config)}
+     * @return cached bitmap or null
+     */
+    public synchronized Bitmap peek(String key) {
+        Bitmap bitmap = lookup(key);
+        if (bitmap != null)
+            hitCount++;
+        return bitmap;
+    }
+
+    /**
+     * Look up an image that may be cached in any of the given configs, e.g. decoders keep
+     * ARGB_8888 for images with alpha whatever the preferred config. Counted as one hit or miss.
+     *
+     * @param source   source passed to {@link #key(String, int, Bitmap.Config)}
+     * @param reqWidth required width passed to the decode method
+     * @param configs  configs the decode may return
+     * @return cached bitmap or null
+     */
+    public synchronized Bitmap get(String source, int reqWidth, Bitmap.Config... configs) {
+        Bitmap bitmap = peek(source, reqWidth, configs);
+        if (bitmap == null)
+            missCount++;
+        return bitmap;
+    }
+
+    /**
+     * Same as {@link #get(String, int, Bitmap.Config...)} without counting a miss
+     */
+    public synchronized Bitmap peek(String source, int reqWidth, Bitmap.Config... configs) {
+        for (Bitmap.Config config : configs) {
+            Bitmap bitmap = lookup(key(source, reqWidth, config));
+            if (bitmap != null) {
+                hitCount++;
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param key    key from {@link #key(String, int, Bitmap.Config)}, with the config of the
+     *               bitmap
+     * @param bitmap decoded bitmap, ignored if null
+     */
+    public synchronized void put(String key, Bitmap bitmap) {
+        if (key != null && bitmap != null && !bitmap.isRecycled()) {
+            shared.add(bitmap);
+            cache.put(key, bitmap);
+        }
+    }
+
+    /**
+     * @return true if bitmap was stored in this cache and may be used by other callers
+     */
+    public synchronized boolean isShared(Bitmap bitmap) {
+        return shared.contains(bitmap);
+    }
+
+    public synchronized void remove(String key) {
+        cache.remove(key);
+    }
+
+    /**
+     * Drop all cached bitmaps
+     */
+    public synchronized void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * Evict least recently used bitmaps until cache is not bigger than given size
+     *
+     * @param maxBytes target size, 0 empties the cache
+     */
+    public synchronized void trimToSize(int maxBytes) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1)
+            cache.trimToSize(Math.max(0, maxBytes));
+        else if (cache.size() > maxBytes)
+            cache.evictAll();
+    }
+
+    /**
+     * @return total bytes of cached bitmaps
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized int maxSize() {
+        return cache.maxSize();
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Reset hit and miss counters
+     */
+    public synchronized void resetCounters() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    /**
+     * @return bytes used by bitmap pixels
+     */
+    public static int getByteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT)
+            return bitmap.getAllocationByteCount();
+        return bitmap.getByteCount();
+    }
+
+    private Bitmap lookup(String key) {
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null && bitmap.isRecycled()) {
+            cache.remove(key);
+            bitmap = null;
+        }
+        return bitmap;
+    }
+
+    private static LruCache<String, Bitmap> createCache(int maxBytes) {
+        return new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return getByteCount(value);
+            }
+        };
+    }
+}
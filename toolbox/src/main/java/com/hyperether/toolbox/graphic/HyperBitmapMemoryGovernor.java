@@ -0,0 +1,213 @@
+package com.hyperether.toolbox.graphic;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+
+import com.hyperether.toolbox.HyperLog;
+import com.hyperether.toolbox.streaming.HyperByteArrayOutputStream;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps bitmaps of the toolbox under a memory budget instead of recovering from
+ * {@link OutOfMemoryError}. Bitmaps of {@link HyperImageProcessing} decodes, transforms and
+ * {@link HyperTileDecoder} tiles are tracked until they are recycled or collected.
+ * <p>
+ * When a decode would go over the budget caches are trimmed once, until decodes fit again, then
+ * the sample size is raised until the decoded bitmap fits.
+ * {@link ComponentCallbacks2#onTrimMemory(int)} shrinks {@link HyperBitmapCache},
+ * {@link HyperBitmapPool} and tile caches. Disabled by default.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperBitmapMemoryGovernor implements ComponentCallbacks2 {
+
+    private static final String TAG = HyperBitmapMemoryGovernor.class.getSimpleName();
+
+    private static final int MB = 1024 * 1024;
+    // part of the app memory class used for bitmaps
+    private static final int BUDGET_DIVIDER = 3;
+    private static final int MAX_SAMPLE_SIZE = 64;
+
+    private static HyperBitmapMemoryGovernor instance;
+
+    // Bitmap keeps identity equality, entries go away when bitmaps are collected
+    private final Map<Bitmap, Integer> tracked = new WeakHashMap<>();
+    private volatile boolean enabled;
+    private long budget;
+    private Context registered;
+    // caches were trimmed for the current stretch of over budget decodes
+    private boolean trimmed;
+
+    private HyperBitmapMemoryGovernor() {
+        budget = Runtime.getRuntime().maxMemory() / BUDGET_DIVIDER;
+    }
+
+    public static synchronized HyperBitmapMemoryGovernor getInstance() {
+        if (instance == null) {
+            instance = new HyperBitmapMemoryGovernor();
+        }
+        return instance;
+    }
+
+    /**
+     * Enable governor with budget from {@link ActivityManager#getMemoryClass()} and register for
+     * trim memory callbacks
+     *
+     * @param context context
+     */
+    public synchronized void enable(Context context) {
+        Context app = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        ActivityManager am = (ActivityManager) app.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am != null)
+            budget = (long) am.getMemoryClass() * MB / BUDGET_DIVIDER;
+        if (registered == null) {
+            app.registerComponentCallbacks(this);
+            registered = app;
+        }
+        enabled = true;
+    }
+
+    /**
+     * Stop tracking and unregister trim memory callbacks
+     */
+    public synchronized void disable() {
+        enabled = false;
+        tracked.clear();
+        if (registered != null) {
+            registered.unregisterComponentCallbacks(this);
+            registered = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param bytes max bytes of tracked bitmaps
+     */
+    public synchronized void setBudget(long bytes) {
+        budget = bytes;
+    }
+
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Track bitmap allocated by the toolbox
+     *
+     * @param bitmap bitmap, may be null
+     * @return same bitmap
+     */
+    public Bitmap track(Bitmap bitmap) {
+        if (enabled && bitmap != null) {
+            synchronized (this) {
+                tracked.put(bitmap, HyperBitmapCache.getByteCount(bitmap));
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return bytes of tracked bitmaps that are not recycled or collected
+     */
+    public synchronized long getUsedBytes() {
+        long used = 0;
+        for (Map.Entry<Bitmap, Integer> entry : tracked.entrySet()) {
+            Bitmap bitmap = entry.getKey();
+            if (bitmap != null && !bitmap.isRecycled())
+                used += entry.getValue();
+        }
+        return used;
+    }
+
+    /**
+     * Raise sample size until decoded bitmap fits the rest of the budget. Caches are trimmed
+     * first, once until a decode fits again, so cached bitmaps give way to new decodes.
+     *
+     * @param width         image width
+     * @param height        image height
+     * @param sampleSize    sample size for the required size
+     * @param bytesPerPixel bytes per pixel of the decode config
+     * @return sample size, not smaller than given
+     */
+    public int adjustSampleSize(int width, int height, int sampleSize, int bytesPerPixel) {
+        if (!enabled || width <= 0 || height <= 0)
+            return sampleSize;
+        int sample = Math.max(1, sampleSize);
+        long needed = decodedBytes(width, height, sample, bytesPerPixel);
+        long budget = getBudget();
+        boolean trim;
+        synchronized (this) {
+            if (getUsedBytes() + needed <= budget) {
+                trimmed = false;
+                return sample;
+            }
+            trim = !trimmed;
+            trimmed = true;
+        }
+        if (trim)
+            trim(TRIM_MEMORY_RUNNING_LOW);
+        long available = budget - getUsedBytes();
+        while (needed > available && sample < MAX_SAMPLE_SIZE
+                && width / (sample * 2) > 0 && height / (sample * 2) > 0) {
+            sample *= 2;
+            needed = decodedBytes(width, height, sample, bytesPerPixel);
+        }
+        if (sample != sampleSize)
+            HyperLog.getInstance().w(TAG, "adjustSampleSize", "sample size " + sampleSize
+                    + " raised to " + sample + ", " + available + " bytes left");
+        return sample;
+    }
+
+    /**
+     * Shrink caches for trim level
+     *
+     * @param level {@link ComponentCallbacks2} trim level
+     */
+    public void trim(int level) {
+        HyperBitmapCache cache = HyperBitmapCache.getInstance();
+        HyperBitmapPool pool = HyperBitmapPool.getInstance();
+        if (level >= TRIM_MEMORY_COMPLETE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            cache.clear();
+            pool.clear();
+            HyperTileDecoder.clearAllCaches();
+            HyperByteArrayOutputStream.trim();
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            cache.trimToSize(cache.size() / 2);
+            pool.clear();
+            HyperTileDecoder.clearAllCaches();
+            HyperByteArrayOutputStream.trim();
+        } else {
+            // ui hidden or running moderate, unused bitmaps first
+            pool.trimToSize(pool.size() / 2);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        trim(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        trim(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    private static long decodedBytes(int width, int height, int sample, int bytesPerPixel) {
+        long w = (width + sample - 1) / sample;
+        long h = (height + sample - 1) / sample;
+        return w * h * bytesPerPixel;
+    }
+}
@@ -0,0 +1,277 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of mutable bitmaps for reuse as decode target ({@link BitmapFactory.Options#inBitmap})
+ * and as output of {@link HyperImageProcessing} transforms, bounded by total bytes.
+ * <p>
+ * From KitKat any pooled bitmap with enough bytes is reconfigured to the requested size, so
+ * bitmaps are bucketed by byte size. Before KitKat only a bitmap of the exact size and config can
+ * be reused. Oldest bitmaps are recycled when the pool is over its size.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperBitmapPool {
+
+    // do not hand out a bitmap much bigger than needed, it would stay pinned by the caller
+    private static final int MAX_OVERSIZE = 4;
+
+    private static HyperBitmapPool instance;
+
+    private final TreeMap<Integer, List<Bitmap>> bySize = new TreeMap<>();
+    private final Map<String, List<Bitmap>> byDimensions = new HashMap<>();
+    private final LinkedList<Bitmap> order = new LinkedList<>();
+    private int size;
+    private int maxSize;
+    private volatile boolean enabled;
+    private int hitCount;
+    private int missCount;
+
+    private HyperBitmapPool() {
+        maxSize = getDefaultSize();
+    }
+
+    public static synchronized HyperBitmapPool getInstance() {
+        if (instance == null) {
+            instance = new HyperBitmapPool();
+        }
+        return instance;
+    }
+
+    /**
+     * @return default max size, 1/16 of the max heap
+     */
+    public static int getDefaultSize() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+    }
+
+    /**
+     * If not enabled bitmaps are always allocated and nothing is kept. Disabled by default.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled)
+            clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param maxBytes max total bytes of pooled bitmaps
+     */
+    public synchronized void setMaxSize(int maxBytes) {
+        maxSize = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return total bytes of pooled bitmaps
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Give bitmap to the pool. Caller must not use it afterwards.
+     *
+     * @param bitmap mutable bitmap
+     * @return false if bitmap was not taken, e.g. immutable or pool disabled
+     */
+    public synchronized boolean put(Bitmap bitmap) {
+        if (!enabled || bitmap == null || bitmap.isRecycled() || !bitmap.isMutable())
+            return false;
+        int bytes = HyperBitmapCache.getByteCount(bitmap);
+        if (bytes > maxSize || order.contains(bitmap))
+            return false;
+        bucket(bitmap, true).add(bitmap);
+        order.addLast(bitmap);
+        size += bytes;
+        trimToSize(maxSize);
+        return true;
+    }
+
+    /**
+     * Take a pooled bitmap of given size, cleared to transparent
+     *
+     * @return bitmap or null if there is none
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = enabled ? take(width, height, config) : null;
+        if (bitmap != null) {
+            bitmap.eraseColor(Color.TRANSPARENT);
+            hitCount++;
+        } else if (enabled) {
+            missCount++;
+        }
+        return bitmap;
+    }
+
+    /**
+     * Take a pooled bitmap of given size or allocate a new one
+     *
+     * @return mutable bitmap, cleared to transparent
+     */
+    public Bitmap obtain(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = get(width, height, config);
+        return bitmap != null ? bitmap : Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Set {@link BitmapFactory.Options#inBitmap} to a pooled bitmap that fits the decoded
+     * image. Options must hold bounds and sample size. Decoded bitmap is mutable.
+     *
+     * @param options decode options
+     */
+    public void prepareReuse(BitmapFactory.Options options) {
+        if (!enabled || options.outWidth <= 0 || options.outHeight <= 0)
+            return;
+        options.inMutable = true;
+        int sample = Math.max(1, options.inSampleSize);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT
+                && (sample != 1 || !isReusableFormat(options.outMimeType)))
+            return;
+        int width = (options.outWidth + sample - 1) / sample;
+        int height = (options.outHeight + sample - 1) / sample;
+        Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig
+                : Bitmap.Config.ARGB_8888;
+        // decoder overwrites every pixel, no need to clear
+        synchronized (this) {
+            options.inBitmap = take(width, height, config);
+            if (options.inBitmap != null)
+                hitCount++;
+            else
+                missCount++;
+        }
+    }
+
+    /**
+     * Recycle oldest bitmaps until pool is not bigger than given size
+     *
+     * @param maxBytes target size, 0 empties the pool
+     */
+    public synchronized void trimToSize(int maxBytes) {
+        while (size > maxBytes && !order.isEmpty()) {
+            Bitmap eldest = order.removeFirst();
+            bucket(eldest, false).remove(eldest);
+            removeEmptyBucket(eldest);
+            size -= HyperBitmapCache.getByteCount(eldest);
+            eldest.recycle();
+        }
+    }
+
+    /**
+     * Recycle all pooled bitmaps
+     */
+    public void clear() {
+        trimToSize(0);
+    }
+
+    private Bitmap take(int width, int height, Bitmap.Config config) {
+        List<Bitmap> bucket = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            int needed = width * height * bytesPerPixel(config);
+            Map.Entry<Integer, List<Bitmap>> entry = bySize.ceilingEntry(needed);
+            if (entry != null && entry.getKey() <= needed * MAX_OVERSIZE)
+                bucket = entry.getValue();
+        } else {
+            bucket = byDimensions.get(dimensionKey(width, height, config));
+        }
+        if (bucket == null || bucket.isEmpty())
+            return null;
+        Bitmap bitmap = bucket.get(bucket.size() - 1);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            try {
+                bitmap.reconfigure(width, height, config);
+            } catch (IllegalArgumentException e) {
+                // not enough bytes for the config after all
+                return null;
+            }
+        }
+        bucket.remove(bucket.size() - 1);
+        removeEmptyBucket(bitmap);
+        order.remove(bitmap);
+        size -= HyperBitmapCache.getByteCount(bitmap);
+        return bitmap;
+    }
+
+    private List<Bitmap> bucket(Bitmap bitmap, boolean create) {
+        List<Bitmap> bucket;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            int bytes = HyperBitmapCache.getByteCount(bitmap);
+            bucket = bySize.get(bytes);
+            if (bucket == null && create) {
+                bucket = new ArrayList<>();
+                bySize.put(bytes, bucket);
+            }
+        } else {
+            String key = dimensionKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+            bucket = byDimensions.get(key);
+            if (bucket == null && create) {
+                bucket = new ArrayList<>();
+                byDimensions.put(key, bucket);
+            }
+        }
+        return bucket != null ? bucket : new ArrayList<Bitmap>();
+    }
+
+    private void removeEmptyBucket(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            int bytes = HyperBitmapCache.getByteCount(bitmap);
+            List<Bitmap> bucket = bySize.get(bytes);
+            if (bucket != null && bucket.isEmpty())
+                bySize.remove(bytes);
+        } else {
+            String key = dimensionKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+            List<Bitmap> bucket = byDimensions.get(key);
+            if (bucket != null && bucket.isEmpty())
+                byDimensions.remove(key);
+        }
+    }
+
+    private static String dimensionKey(int width, int height, Bitmap.Config config) {
+        return width + "x" + height + "-" + config;
+    }
+
+    private static boolean isReusableFormat(String mimeType) {
+        return "image/jpeg".equals(mimeType) || "image/png".equals(mimeType);
+    }
+
+    static int bytesPerPixel(Bitmap.Config config) {
+        if (config == null)
+            return 4;
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.os.Build;
+
+/**
+ * Crop, rotation, resize and circle mask of a bitmap, rendered in one draw into one output
+ * bitmap taken from {@link HyperBitmapPool}. Steps are combined into a single {@link Matrix},
+ * crop is the output bounds and the mask is drawn as an oval filled with the transformed
+ * source, so no intermediate bitmap is allocated.
+ * <p>
+ * Steps are applied in order crop, rotation, resize, mask.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperBitmapTransform {
+
+    private final Rect crop;
+    private final boolean squareCrop;
+    private final float rotation;
+    private final int targetWidth;
+    private final int targetHeight;
+    private final boolean circle;
+    private final boolean filter;
+
+    private HyperBitmapTransform(Builder builder) {
+        this.crop = builder.crop;
+        this.squareCrop = builder.squareCrop;
+        this.rotation = builder.rotation;
+        this.targetWidth = builder.targetWidth;
+        this.targetHeight = builder.targetHeight;
+        this.circle = builder.circle;
+        this.filter = builder.filter;
+    }
+
+    /**
+     * Render source through the transform. Source is not changed.
+     *
+     * @param source source bitmap
+     * @return new bitmap, or source if transform does not change it
+     * @throws OutOfMemoryError if output can not be allocated
+     */
+    public Bitmap apply(Bitmap source) {
+        if (source == null)
+            return null;
+        Rect region = getRegion(source);
+        Matrix matrix = new Matrix();
+        matrix.setTranslate(-region.left, -region.top);
+        matrix.postRotate(rotation);
+        RectF bounds = new RectF(0, 0, region.width(), region.height());
+        matrix.mapRect(bounds);
+        matrix.postTranslate(-bounds.left, -bounds.top);
+
+        int width = Math.round(bounds.width());
+        int height = Math.round(bounds.height());
+        if (targetWidth > 0 && width > 0 && height > 0) {
+            int newHeight = targetHeight > 0 ? targetHeight
+                    : Math.max(1, Math.round((float) height * targetWidth / width));
+            matrix.postScale((float) targetWidth / width, (float) newHeight / height);
+            width = targetWidth;
+            height = newHeight;
+        }
+        if (width <= 0 || height <= 0)
+            return source;
+        if (matrix.isIdentity() && !circle && width == source.getWidth()
+                && height == source.getHeight())
+            return source;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                && source.getConfig() == Bitmap.Config.HARDWARE) {
+            // hardware bitmaps can not be drawn on a software canvas
+            source = source.copy(Bitmap.Config.ARGB_8888, false);
+        }
+
+        boolean keepsRect = matrix.rectStaysRect() && !circle;
+        Bitmap output = HyperBitmapPool.getInstance().obtain(width, height,
+                getConfig(source, keepsRect));
+        output.setDensity(source.getDensity());
+        output.setHasAlpha(source.hasAlpha() || !keepsRect);
+
+        Canvas canvas = new Canvas(output);
+        Paint paint = new Paint(Paint.DITHER_FLAG);
+        paint.setFilterBitmap(filter);
+        if (circle) {
+            BitmapShader shader = new BitmapShader(source, Shader.TileMode.CLAMP,
+                    Shader.TileMode.CLAMP);
+            shader.setLocalMatrix(matrix);
+            paint.setShader(shader);
+            paint.setAntiAlias(true);
+            canvas.drawOval(new RectF(0, 0, width, height), paint);
+        } else {
+            if (!matrix.rectStaysRect())
+                paint.setAntiAlias(true);
+            canvas.drawBitmap(source, matrix, paint);
+        }
+        return HyperBitmapMemoryGovernor.getInstance().track(output);
+    }
+
+    private Rect getRegion(Bitmap source) {
+        Rect region = new Rect(0, 0, source.getWidth(), source.getHeight());
+        if (crop != null && !region.intersect(crop))
+            region.setEmpty();
+        if (squareCrop) {
+            int side = Math.min(region.width(), region.height());
+            int left = region.left + (region.width() - side) / 2;
+            int top = region.top + (region.height() - side) / 2;
+            region.set(left, top, left + side, top + side);
+        }
+        return region;
+    }
+
+    private static Bitmap.Config getConfig(Bitmap source, boolean keepsRect) {
+        Bitmap.Config config = source.getConfig();
+        if (keepsRect && (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ALPHA_8))
+            return config;
+        return Bitmap.Config.ARGB_8888;
+    }
+
+    public static class Builder {
+
+        private Rect crop = null;
+        private boolean squareCrop = false;
+        private float rotation = 0;
+        private int targetWidth = 0;
+        private int targetHeight = 0;
+        private boolean circle = false;
+        private boolean filter = true;
+
+        public HyperBitmapTransform build() {
+            return new HyperBitmapTransform(this);
+        }
+
+        /**
+         * If not set whole source is used
+         *
+         * @param crop part of the source to keep, in source pixels
+         *
+         * @return builder instance
+         */
+        public Builder setCrop(Rect crop) {
+            this.crop = crop != null ? new Rect(crop) : null;
+            return this;
+        }
+
+        /**
+         * If not set default value will be false
+         *
+         * @param squareCrop keep the centered square of the crop
+         *
+         * @return builder instance
+         */
+        public Builder setSquareCrop(boolean squareCrop) {
+            this.squareCrop = squareCrop;
+            return this;
+        }
+
+        /**
+         * If not set default value will be 0
+         *
+         * @param degrees clockwise rotation, output is the bounding box of the rotated crop
+         *
+         * @return builder instance
+         */
+        public Builder setRotation(float degrees) {
+            this.rotation = degrees;
+            return this;
+        }
+
+        /**
+         * If not set output has the size of the rotated crop
+         *
+         * @param width  output width
+         * @param height output height, 0 keeps aspect ratio
+         *
+         * @return builder instance
+         */
+        public Builder setTargetSize(int width, int height) {
+            this.targetWidth = width;
+            this.targetHeight = height;
+            return this;
+        }
+
+        /**
+         * If not set default value will be false
+         *
+         * @param circle mask output with the inscribed oval, pixels outside are transparent
+         *
+         * @return builder instance
+         */
+        public Builder setCircle(boolean circle) {
+            this.circle = circle;
+            return this;
+        }
+
+        /**
+         * If not set default value will be true
+         *
+         * @param filter bilinear filtering when scaling or rotating
+         *
+         * @return builder instance
+         */
+        public Builder setFilter(boolean filter) {
+            this.filter = filter;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.hyperether.toolbox.graphic;
+
+import android.content.Context;
+import android.media.ExifInterface;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.util.LruCache;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads image orientation from the header of the image stream, without copying the file.
+ * <p>
+ * JPEG EXIF is parsed up to the APP1 segment only. HEIF rotation is read with
+ * {@link MediaMetadataRetriever} from API 28, which reads the metadata boxes only. Results are
+ * cached per uri.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperExifOrientation {
+
+    private static final String TAG = HyperExifOrientation.class.getSimpleName();
+
+    private static final int CACHE_SIZE = 256;
+    private static final int MAX_SEGMENTS = 32;
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int TYPE_SHORT = 3;
+
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+
+    private static final LruCache<String, Integer> cache = new LruCache<>(CACHE_SIZE);
+
+    /**
+     * Get EXIF orientation of the image
+     *
+     * @param uri content or file uri
+     * @return EXIF orientation, {@link ExifInterface#ORIENTATION_NORMAL} if image has none,
+     * {@link ExifInterface#ORIENTATION_UNDEFINED} if it can not be read
+     */
+    public static int get(Uri uri) {
+        if (uri == null)
+            return ExifInterface.ORIENTATION_UNDEFINED;
+        String key = uri.toString();
+        Integer cached = cache.get(key);
+        if (cached != null)
+            return cached;
+        int orientation = read(uri);
+        if (orientation != ExifInterface.ORIENTATION_UNDEFINED)
+            cache.put(key, orientation);
+        return orientation;
+    }
+
+    /**
+     * Drop cached orientation, e.g. after the image was edited
+     */
+    public static void invalidate(Uri uri) {
+        if (uri != null)
+            cache.remove(uri.toString());
+    }
+
+    public static void clearCache() {
+        cache.evictAll();
+    }
+
+    /**
+     * Read orientation from JPEG stream, stream is read to the APP1 segment and not closed
+     *
+     * @param in image stream
+     * @return EXIF orientation, {@link ExifInterface#ORIENTATION_NORMAL} if image has none,
+     * {@link ExifInterface#ORIENTATION_UNDEFINED} if it is not a JPEG
+     * @throws IOException on read error
+     */
+    public static int readJpeg(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readUnsignedByte() != 0xFF || data.readUnsignedByte() != MARKER_SOI)
+            return ExifInterface.ORIENTATION_UNDEFINED;
+        for (int i = 0; i < MAX_SEGMENTS; i++) {
+            int marker = nextMarker(data);
+            if (marker == MARKER_SOS || marker == MARKER_EOI)
+                break;
+            int length = data.readUnsignedShort() - 2;
+            if (length < 0)
+                break;
+            if (marker == MARKER_APP1 && length > 6) {
+                byte[] segment = new byte[length];
+                data.readFully(segment);
+                if (isExif(segment))
+                    return parseTiff(segment, 6);
+            } else {
+                skipFully(data, length);
+            }
+        }
+        return ExifInterface.ORIENTATION_NORMAL;
+    }
+
+    private static int read(Uri uri) {
+        Context context = HyperApp.getInstance().getApplicationContext();
+        InputStream in = null;
+        boolean heif = false;
+        try {
+            in = context.getContentResolver().openInputStream(uri);
+            if (in == null)
+                return ExifInterface.ORIENTATION_UNDEFINED;
+            in = new BufferedInputStream(in, 16);
+            in.mark(16);
+            byte[] head = new byte[12];
+            int count = readUpTo(in, head);
+            in.reset();
+            if (count >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == MARKER_SOI)
+                return readJpeg(in);
+            heif = count == head.length && isHeif(head);
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "read: " + uri, e);
+            return ExifInterface.ORIENTATION_UNDEFINED;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        if (heif && Build.VERSION.SDK_INT >= Build.VERSION_CODES.P)
+            return readHeif(context, uri);
+        // other formats carry no orientation used by the decoders
+        return ExifInterface.ORIENTATION_NORMAL;
+    }
+
+    private static int readHeif(Context context, Uri uri) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(context, uri);
+            String rotation = retriever.extractMetadata(
+                    MediaMetadataRetriever.METADATA_KEY_IMAGE_ROTATION);
+            return toOrientation(rotation != null ? Integer.parseInt(rotation) : 0);
+        } catch (RuntimeException e) {
+            HyperLog.getInstance().e(TAG, "readHeif: " + uri, e);
+            return ExifInterface.ORIENTATION_UNDEFINED;
+        } finally {
+            try {
+                retriever.release();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static int toOrientation(int degrees) {
+        switch ((degrees % 360 + 360) % 360) {
+            case 90:
+                return ExifInterface.ORIENTATION_ROTATE_90;
+            case 180:
+                return ExifInterface.ORIENTATION_ROTATE_180;
+            case 270:
+                return ExifInterface.ORIENTATION_ROTATE_270;
+            default:
+                return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    private static int parseTiff(byte[] b, int start) {
+        if (b.length < start + 8)
+            return ExifInterface.ORIENTATION_NORMAL;
+        boolean little;
+        if (b[start] == 'I' && b[start + 1] == 'I')
+            little = true;
+        else if (b[start] == 'M' && b[start + 1] == 'M')
+            little = false;
+        else
+            return ExifInterface.ORIENTATION_NORMAL;
+        long ifd = readInt(b, start + 4, little) & 0xFFFFFFFFL;
+        int offset = start + (int) Math.min(ifd, b.length);
+        if (offset + 2 > b.length)
+            return ExifInterface.ORIENTATION_NORMAL;
+        int entries = readShort(b, offset, little);
+        offset += 2;
+        for (int i = 0; i < entries && offset + 12 <= b.length; i++, offset += 12) {
+            if (readShort(b, offset, little) == TAG_ORIENTATION
+                    && readShort(b, offset + 2, little) == TYPE_SHORT) {
+                int value = readShort(b, offset + 8, little);
+                if (value >= ExifInterface.ORIENTATION_NORMAL
+                        && value <= ExifInterface.ORIENTATION_ROTATE_270)
+                    return value;
+                return ExifInterface.ORIENTATION_NORMAL;
+            }
+        }
+        return ExifInterface.ORIENTATION_NORMAL;
+    }
+
+    private static boolean isExif(byte[] b) {
+        return b[0] == 'E' && b[1] == 'x' && b[2] == 'i' && b[3] == 'f' && b[4] == 0
+                && b[5] == 0;
+    }
+
+    private static boolean isHeif(byte[] head) {
+        if (head[4] != 'f' || head[5] != 't' || head[6] != 'y' || head[7] != 'p')
+            return false;
+        String brand = new String(head, 8, 4);
+        return brand.equals("heic") || brand.equals("heix") || brand.equals("hevc")
+                || brand.equals("heim") || brand.equals("heis") || brand.equals("mif1")
+                || brand.equals("msf1");
+    }
+
+    private static int nextMarker(DataInputStream data) throws IOException {
+        int b = data.readUnsignedByte();
+        if (b != 0xFF)
+            throw new IOException("Invalid JPEG marker");
+        // markers may be padded with 0xFF
+        while (b == 0xFF)
+            b = data.readUnsignedByte();
+        return b;
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() == -1)
+                    throw new EOFException();
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static int readUpTo(InputStream in, byte[] buffer) throws IOException {
+        int count = 0;
+        while (count < buffer.length) {
+            int read = in.read(buffer, count, buffer.length - count);
+            if (read == -1)
+                break;
+            count += read;
+        }
+        return count;
+    }
+
+    private static int readShort(byte[] b, int offset, boolean little) {
+        if (little)
+            return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8;
+        return (b[offset] & 0xFF) << 8 | (b[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] b, int offset, boolean little) {
+        if (little)
+            return readShort(b, offset, true) | readShort(b, offset + 2, true) << 16;
+        return readShort(b, offset, false) << 16 | readShort(b, offset + 2, false);
+    }
+}
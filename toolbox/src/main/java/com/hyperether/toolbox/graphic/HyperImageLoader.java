@@ -0,0 +1,372 @@
+package com.hyperether.toolbox.graphic;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads images in background with {@link HyperImageProcessing} decode methods.
+ * <p>
+ * Decodes run on a bounded executor, {@link #PRIORITY_VISIBLE} requests before
+ * {@link #PRIORITY_PREFETCH} ones. Requests for the same source and width share one decode, and
+ * a new request for the same target, e.g. a recycled view, cancels the previous one. Listeners
+ * are called on the main thread. Bitmaps of shared decodes are the same instance.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperImageLoader {
+
+    private static final String TAG = HyperImageLoader.class.getSimpleName();
+
+    public static final int PRIORITY_VISIBLE = 0;
+    public static final int PRIORITY_PREFETCH = 1;
+
+    private static final int TYPE_FILE = 0;
+    private static final int TYPE_URI = 1;
+    private static final int TYPE_URL = 2;
+    private static final int TYPE_RESOURCE = 3;
+
+    private static final int MAX_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static HyperImageLoader instance;
+
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Job> jobs = new HashMap<>();
+    private final Map<Object, Request> targets = new WeakHashMap<>();
+    private long sequence;
+
+    /**
+     * Load request, returned to the caller to cancel it
+     */
+    public class Request {
+        private final Job job;
+        private final Object target;
+        private final OnImageLoaded listener;
+        private volatile boolean cancelled;
+
+        private Request(Job job, Object target, OnImageLoaded listener) {
+            this.job = job;
+            this.target = target;
+            this.listener = listener;
+        }
+
+        /**
+         * @return file path, uri, url or resource id of the image
+         */
+        public String getSource() {
+            return job.source;
+        }
+
+        public Object getTarget() {
+            return target;
+        }
+
+        /**
+         * Listener is not called after cancel. Shared decode is stopped when no request needs
+         * it anymore and it has not started yet.
+         */
+        public void cancel() {
+            HyperImageLoader.this.cancel(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private HyperImageLoader() {
+        int threads = Math.max(1, Math.min(MAX_THREADS,
+                Runtime.getRuntime().availableProcessors()));
+        executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+            private int count;
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, TAG + "-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static synchronized HyperImageLoader getInstance() {
+        if (instance == null) {
+            instance = new HyperImageLoader();
+        }
+        return instance;
+    }
+
+    /**
+     * Load image from file
+     *
+     * @param path     file path
+     * @param reqWidth required width
+     * @param priority {@link #PRIORITY_VISIBLE} or {@link #PRIORITY_PREFETCH}
+     * @param target   object the image is loaded for, e.g. view, or null
+     * @param listener listener
+     * @return request
+     */
+    public Request loadFile(String path,
+                            int reqWidth,
+                            int priority,
+                            Object target,
+                            OnImageLoaded listener) {
+        return load(TYPE_FILE, path, "file:" + path, reqWidth, priority, target, listener);
+    }
+
+    /**
+     * Load image from content or file uri
+     *
+     * @param uri      uri
+     * @param reqWidth required width
+     * @param priority {@link #PRIORITY_VISIBLE} or {@link #PRIORITY_PREFETCH}
+     * @param target   object the image is loaded for, e.g. view, or null
+     * @param listener listener
+     * @return request
+     */
+    public Request loadUri(Uri uri,
+                           int reqWidth,
+                           int priority,
+                           Object target,
+                           OnImageLoaded listener) {
+        String source = String.valueOf(uri);
+        return load(TYPE_URI, source, source, reqWidth, priority, target, listener);
+    }
+
+    /**
+     * Load image from network
+     *
+     * @param url      url
+     * @param reqWidth required width
+     * @param priority {@link #PRIORITY_VISIBLE} or {@link #PRIORITY_PREFETCH}
+     * @param target   object the image is loaded for, e.g. view, or null
+     * @param listener listener
+     * @return request
+     */
+    public Request loadUrl(String url,
+                           int reqWidth,
+                           int priority,
+                           Object target,
+                           OnImageLoaded listener) {
+        return load(TYPE_URL, url, url, reqWidth, priority, target, listener);
+    }
+
+    /**
+     * Load image from app resources
+     *
+     * @param id       resource id
+     * @param reqWidth required width
+     * @param priority {@link #PRIORITY_VISIBLE} or {@link #PRIORITY_PREFETCH}
+     * @param target   object the image is loaded for, e.g. view, or null
+     * @param listener listener
+     * @return request
+     */
+    public Request loadResource(int id,
+                                int reqWidth,
+                                int priority,
+                                Object target,
+                                OnImageLoaded listener) {
+        String source = String.valueOf(id);
+        return load(TYPE_RESOURCE, source, "res:" + id, reqWidth, priority, target, listener);
+    }
+
+    /**
+     * Cancel request of target, e.g. when the view scrolled away
+     *
+     * @param target target passed to a load method
+     */
+    public void cancel(Object target) {
+        Request request;
+        synchronized (this) {
+            request = targets.get(target);
+        }
+        if (request != null)
+            request.cancel();
+    }
+
+    /**
+     * Cancel all requests
+     */
+    public synchronized void cancelAll() {
+        for (Job job : new ArrayList<>(jobs.values())) {
+            for (Request request : new ArrayList<>(job.requests))
+                cancel(request);
+        }
+    }
+
+    /**
+     * @return number of decodes waiting or running
+     */
+    public synchronized int getPendingCount() {
+        return jobs.size();
+    }
+
+    private Request load(int type,
+                         String source,
+                         String cacheSource,
+                         int reqWidth,
+                         int priority,
+                         Object target,
+                         OnImageLoaded listener) {
+        if (target != null)
+            cancel(target);
+
+        // memory cache hit does not need a decode thread
+        Bitmap cached = HyperImageProcessing.peekCached(cacheSource, reqWidth);
+        synchronized (this) {
+            String key = type + ":" + source + "#" + reqWidth;
+            Job job = jobs.get(key);
+            if (job == null || cached != null) {
+                job = new Job(type, source, reqWidth, priority, key);
+                if (cached == null) {
+                    jobs.put(key, job);
+                    executor.execute(job);
+                }
+            } else if (priority < job.priority && executor.remove(job)) {
+                // waiting shared decode is now needed sooner, queue it again
+                job.priority = priority;
+                job.sequence = ++sequence;
+                executor.execute(job);
+            }
+            Request request = new Request(job, target, listener);
+            if (target != null)
+                targets.put(target, request);
+            if (cached == null)
+                job.requests.add(request);
+            else
+                deliver(request, cached);
+            return request;
+        }
+    }
+
+    private synchronized void cancel(Request request) {
+        if (request.cancelled)
+            return;
+        request.cancelled = true;
+        if (request.target != null && targets.get(request.target) == request)
+            targets.remove(request.target);
+        Job job = request.job;
+        job.requests.remove(request);
+        if (job.requests.isEmpty() && jobs.get(job.key) == job && executor.remove(job))
+            jobs.remove(job.key);
+    }
+
+    private void finish(Job job, Bitmap bitmap) {
+        List<Request> requests;
+        synchronized (this) {
+            if (jobs.get(job.key) == job)
+                jobs.remove(job.key);
+            requests = new ArrayList<>(job.requests);
+            job.requests.clear();
+        }
+        for (Request request : requests)
+            deliver(request, bitmap);
+    }
+
+    private void deliver(final Request request, final Bitmap bitmap) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (HyperImageLoader.this) {
+                    if (request.cancelled)
+                        return;
+                    if (request.target != null && targets.get(request.target) == request)
+                        targets.remove(request.target);
+                }
+                if (request.listener != null)
+                    request.listener.onLoaded(request, bitmap);
+            }
+        });
+    }
+
+    private class Job implements Runnable, Comparable<Job> {
+        private final int type;
+        private final String source;
+        private final int reqWidth;
+        private final String key;
+        private final List<Request> requests = new ArrayList<>();
+        private int priority;
+        private long sequence;
+
+        private Job(int type, String source, int reqWidth, int priority, String key) {
+            this.type = type;
+            this.source = source;
+            this.reqWidth = reqWidth;
+            this.priority = priority;
+            this.key = key;
+            this.sequence = ++HyperImageLoader.this.sequence;
+        }
+
+        @Override
+        public void run() {
+            synchronized (HyperImageLoader.this) {
+                if (requests.isEmpty()) {
+                    if (jobs.get(key) == this)
+                        jobs.remove(key);
+                    return;
+                }
+            }
+            Bitmap bitmap = null;
+            try {
+                bitmap = decode();
+            } catch (Exception e) {
+                HyperLog.getInstance().e(TAG, "decode: " + source, e);
+            } catch (OutOfMemoryError error) {
+                HyperLog.getInstance().e(TAG, "decode: " + source, error.toString());
+            }
+            finish(this, bitmap);
+        }
+
+        private Bitmap decode() throws Exception {
+            switch (type) {
+                case TYPE_FILE:
+                    return HyperImageProcessing.decodeBitmapFromFilePath(source, reqWidth);
+                case TYPE_URI:
+                    return HyperImageProcessing.getBitmapFromUri(Uri.parse(source), reqWidth);
+                case TYPE_URL:
+                    return HyperImageProcessing.decodeBitmapFromInputStream(source, reqWidth);
+                case TYPE_RESOURCE:
+                    Context context = HyperApp.getInstance().getApplicationContext();
+                    return HyperImageProcessing.decodeBitmapFromResources(context.getResources(),
+                            Integer.parseInt(source), reqWidth);
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            // compareTo is called by the queue under its own lock, fields are only changed
+            // while the job is out of the queue
+            if (priority != other.priority)
+                return priority < other.priority ? -1 : 1;
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
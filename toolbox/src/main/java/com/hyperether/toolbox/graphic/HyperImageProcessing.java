@@ -7,6 +7,7 @@ import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.ImageDecoder;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PorterDuff;
@@ -19,23 +20,34 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.ParcelFileDescriptor;
 import android.provider.MediaStore;
+import android.util.Size;
+
+import androidx.annotation.RequiresApi;
 
 import com.hyperether.toolbox.HyperApp;
 import com.hyperether.toolbox.HyperLog;
+import com.hyperether.toolbox.storage.HyperDiskCache;
 import com.hyperether.toolbox.storage.HyperFileManager;
 import com.hyperether.toolbox.streaming.HyperDownloadStreamer;
+import com.hyperether.toolbox.streaming.HyperProgressOutputStream;
+import com.hyperether.toolbox.streaming.OnTransferProgress;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import static android.graphics.Bitmap.createBitmap;
 
 /**
- * HyperImageProcessing - image manipulation, save and load
+ * HyperImageProcessing - image manipulation, save and load. Decode methods use
+ * {@link HyperBitmapCache} when it is enabled, network decode also uses {@link HyperDiskCache}.
+ * File decodes and transforms take their bitmaps from {@link HyperBitmapPool} when it is
+ * enabled. Decoded bitmaps are kept under the budget of {@link HyperBitmapMemoryGovernor}.
  *
  * @author Marko Katic
  * @author Slobodan Prijic
@@ -46,6 +58,14 @@ public class HyperImageProcessing {
 
     private static final String TAG = HyperImageProcessing.class.getSimpleName();
 
+    private static final Bitmap.Config DECODE_CONFIG = Bitmap.Config.RGB_565;
+    // configs decodes return, images with alpha stay ARGB_8888 whatever the preferred config
+    private static final Bitmap.Config[] DECODED_CONFIGS =
+            {DECODE_CONFIG, Bitmap.Config.ARGB_8888};
+    // max bytes buffered for the bounds decode of a network stream, enough for large EXIF headers
+    private static final int HEADER_LIMIT = 256 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+
     /**
      * Decode Bitmap From File Path
      *
@@ -56,17 +76,31 @@ public class HyperImageProcessing {
     public static Bitmap decodeBitmapFromFilePath(String path, int reqWidth) {
         Bitmap b;
         if (path != null) {
-            try {
-                // First decode with inJustDecodeBounds=true to check dimensions
-                BitmapFactory.Options options = new BitmapFactory.Options();
-                options.inJustDecodeBounds = true;
-                BitmapFactory.decodeFile(path, options);
-                options = prepareOptions(options, reqWidth);
-                b = BitmapFactory.decodeFile(path, options);
+            String source = "file:" + path;
+            b = getCached(source, reqWidth);
+            if (b != null)
                 return b;
-            } catch (OutOfMemoryError error) {
-                HyperLog.getInstance().e(TAG, "decodeBitmapFromFilePath", error.toString());
+            return putCached(source, reqWidth, decodeFile(path, reqWidth));
+        }
+        return null;
+    }
+
+    private static Bitmap decodeFile(String path, int reqWidth) {
+        try {
+            // First decode with inJustDecodeBounds=true to check dimensions
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(path, options);
+            options = prepareOptions(options, reqWidth, true);
+            try {
+                return tracked(BitmapFactory.decodeFile(path, options));
+            } catch (IllegalArgumentException e) {
+                // pooled bitmap can not hold the image, decode into a new one
+                returnReused(options);
+                return tracked(BitmapFactory.decodeFile(path, options));
             }
+        } catch (OutOfMemoryError error) {
+            HyperLog.getInstance().e(TAG, "decodeBitmapFromFilePath", error.toString());
         }
         return null;
     }
@@ -82,14 +116,18 @@ public class HyperImageProcessing {
     public static Bitmap decodeBitmapFromResources(Resources res, int id, int reqWidth) {
         Bitmap b;
         if (res != null && id != -1 && id != 0) {
+            String source = "res:" + id;
+            b = getCached(source, reqWidth);
+            if (b != null)
+                return b;
             try {
                 // First decode with inJustDecodeBounds=true to check dimensions
                 BitmapFactory.Options options = new BitmapFactory.Options();
                 options.inJustDecodeBounds = true;
                 BitmapFactory.decodeResource(res, id, options);
                 options = prepareOptions(options, reqWidth);
-                b = BitmapFactory.decodeResource(res, id, options);
-                return b;
+                b = tracked(BitmapFactory.decodeResource(res, id, options));
+                return putCached(source, reqWidth, b);
             } catch (OutOfMemoryError error) {
                 HyperLog.getInstance().e(TAG, "decodeBitmapFromResources", error.toString());
             }
@@ -141,32 +179,54 @@ public class HyperImageProcessing {
     }
 
     public static Bitmap getBitmapFromUri(Uri uri, int requiredWidth) throws Exception {
+        return getBitmapFromUri(uri, requiredWidth, null);
+    }
+
+    private static Bitmap getBitmapFromUri(Uri uri,
+                                           int requiredWidth,
+                                           BitmapFactory.Options bounds) throws Exception {
+        String source = uri != null ? uri.toString() : null;
+        Bitmap bm = getCached(source, requiredWidth);
+        if (bm != null)
+            return bm;
+        bm = decodeBitmapFromUri(uri, requiredWidth, 0, bounds);
+        return putCached(source, requiredWidth, bm);
+    }
+
+    /**
+     * @param degrees rotation applied in the same draw as the resize
+     * @param bounds  bounds from {@link #decodeBounds(Uri)} or null to read them
+     */
+    private static Bitmap decodeBitmapFromUri(Uri uri,
+                                              int requiredWidth,
+                                              int degrees,
+                                              BitmapFactory.Options bounds) throws Exception {
         Bitmap bm = null;
+        if (requiredWidth > 0) {
+            bm = decodeBitmapExactSize(uri, requiredWidth, 0, bounds);
+            if (bm != null)
+                return resizeRotated(bm, -1, degrees);
+        }
+
         Context c = HyperApp.getInstance().getApplicationContext();
         try {
-            bm = MediaStore.Images.Media.getBitmap(c.getContentResolver(), uri);
+            bm = tracked(MediaStore.Images.Media.getBitmap(c.getContentResolver(), uri));
         } catch (IOException e) {
             HyperLog.getInstance().e(TAG, "-readBitmapFromUri: " + uri, e);
         }
-        if (bm != null) {
-            if (requiredWidth > 0)
-                bm = getResizedBitmap(bm, requiredWidth);
-            return bm;
-        }
+        if (bm != null)
+            return resizeRotated(bm, requiredWidth, degrees);
 
         try {
-            bm = BitmapFactory.decodeStream(c.getContentResolver().openInputStream(uri));
+            bm = tracked(BitmapFactory.decodeStream(c.getContentResolver().openInputStream(uri)));
         } catch (FileNotFoundException e) {
             HyperLog.getInstance().e(TAG, "--readBitmapFromUri: " + uri, e);
         } catch (OutOfMemoryError oom) {
             HyperLog.getInstance().e(TAG, "--readBitmapFromUri OOM", oom.getLocalizedMessage());
         }
 
-        if (bm != null) {
-            if (requiredWidth > 0)
-                bm = getResizedBitmap(bm, requiredWidth);
-            return bm;
-        }
+        if (bm != null)
+            return resizeRotated(bm, requiredWidth, degrees);
 
         ParcelFileDescriptor parcelFileDescriptor;
         parcelFileDescriptor = c.getContentResolver().openFileDescriptor(uri, "r");
@@ -178,7 +238,196 @@ public class HyperImageProcessing {
             bm = decodeBitmapFromFileDescriptor(fileDescriptor, requiredWidth);
             parcelFileDescriptor.close();
         }
-        return bm;
+        return bm != null ? resizeRotated(bm, -1, degrees) : null;
+    }
+
+    /**
+     * Decode image directly at the given size, without a full size bitmap and a resize
+     *
+     * @param uri    content or file uri
+     * @param width  width of the result
+     * @param height height of the result, 0 keeps aspect ratio
+     * @return bitmap or null
+     */
+    public static Bitmap decodeBitmapExactSize(Uri uri, int width, int height) {
+        return decodeBitmapExactSize(uri, width, height, null);
+    }
+
+    private static Bitmap decodeBitmapExactSize(Uri uri,
+                                                int width,
+                                                int height,
+                                                BitmapFactory.Options bounds) {
+        if (uri == null || width <= 0)
+            return null;
+        try {
+            // ImageDecoder may apply EXIF orientation, keep rotated images on BitmapFactory
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P
+                    && getOrientation(uri) <= ExifInterface.ORIENTATION_NORMAL)
+                return decodeWithImageDecoder(uri, width, height);
+            return decodeScaled(uri, width, height, bounds);
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "decodeBitmapExactSize: " + uri, e);
+        } catch (OutOfMemoryError error) {
+            HyperLog.getInstance().e(TAG, "decodeBitmapExactSize", error.toString());
+        }
+        return null;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.P)
+    private static Bitmap decodeWithImageDecoder(Uri uri, final int width, final int height)
+            throws IOException {
+        Context c = HyperApp.getInstance().getApplicationContext();
+        ImageDecoder.Source source = ImageDecoder.createSource(c.getContentResolver(), uri);
+        ImageDecoder.OnHeaderDecodedListener listener = new ImageDecoder.OnHeaderDecodedListener() {
+            @Override
+            public void onHeaderDecoded(ImageDecoder decoder,
+                                        ImageDecoder.ImageInfo info,
+                                        ImageDecoder.Source source) {
+                Size size = info.getSize();
+                int targetHeight = height > 0 ? height
+                        : Math.max(1, (int) ((long) size.getHeight() * width / size.getWidth()));
+                // decode smaller rather than run out of memory
+                int sample = HyperBitmapMemoryGovernor.getInstance().adjustSampleSize(width,
+                        targetHeight, 1, decodedBytesPerPixel(info.getMimeType()));
+                decoder.setTargetSize(Math.max(1, width / sample),
+                        Math.max(1, targetHeight / sample));
+                // software and mutable, so transforms can draw it and the pool can reuse it
+                decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+                decoder.setMutableRequired(true);
+                decoder.setMemorySizePolicy(ImageDecoder.MEMORY_POLICY_LOW_RAM);
+            }
+        };
+        return tracked(ImageDecoder.decodeBitmap(source, listener));
+    }
+
+    /**
+     * Decode with the nearest larger sample size and let the decoder scale the rest through
+     * density, same as resources are scaled to the screen density
+     */
+    private static Bitmap decodeScaled(Uri uri,
+                                       int width,
+                                       int height,
+                                       BitmapFactory.Options bounds) throws IOException {
+        ContentResolver resolver = HyperApp.getInstance().getApplicationContext()
+                .getContentResolver();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        if (bounds != null) {
+            options.outWidth = bounds.outWidth;
+            options.outHeight = bounds.outHeight;
+            options.outMimeType = bounds.outMimeType;
+        } else {
+            options.inJustDecodeBounds = true;
+            decodeStream(resolver, uri, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0)
+            return null;
+        int targetHeight = getTargetHeight(options, width, height);
+        int sampleSize = getScaledSampleSize(options, width, targetHeight);
+        options = prepareSampledOptions(options, sampleSize, false);
+        if (options.inSampleSize != sampleSize) {
+            // raised by the governor, result is smaller than asked instead of scaled up again
+            width = Math.max(1, width * sampleSize / options.inSampleSize);
+            targetHeight = Math.max(1, targetHeight * sampleSize / options.inSampleSize);
+        }
+        int sampledWidth = options.outWidth / options.inSampleSize;
+        if (sampledWidth != width) {
+            options.inScaled = true;
+            options.inDensity = sampledWidth;
+            options.inTargetDensity = width;
+        }
+        Bitmap b = decodeStream(resolver, uri, options);
+        if (b == null)
+            return null;
+        // density was only used for scaling, keep the default of decoded streams
+        b.setDensity(Resources.getSystem().getDisplayMetrics().densityDpi);
+        if (b.getWidth() != width || b.getHeight() != targetHeight) {
+            // rounding of the sampled size or a different aspect ratio
+            Bitmap decoded = b;
+            b = getResizedBitmap(decoded, width, targetHeight);
+            release(decoded, b);
+        }
+        return b;
+    }
+
+    /**
+     * Read image bounds once, to estimate the decode cost before passing them to the decode
+     *
+     * @param uri content or file uri
+     * @return options with outWidth, outHeight and outMimeType, sizes are -1 if the image can
+     * not be decoded
+     * @throws IOException if uri can not be opened
+     */
+    static BitmapFactory.Options decodeBounds(Uri uri) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decodeStream(HyperApp.getInstance().getApplicationContext().getContentResolver(), uri,
+                options);
+        return options;
+    }
+
+    /**
+     * @return height of an exact size decode, from the aspect ratio if height is 0
+     */
+    static int getTargetHeight(BitmapFactory.Options bounds, int width, int height) {
+        if (height > 0)
+            return height;
+        return Math.max(1, (int) ((long) bounds.outHeight * width / bounds.outWidth));
+    }
+
+    /**
+     * @return largest power of 2 sample size that keeps the image at least the target size
+     */
+    static int getScaledSampleSize(BitmapFactory.Options bounds, int width, int height) {
+        int sampleSize = 1;
+        while (bounds.outWidth / (sampleSize * 2) >= width
+                && bounds.outHeight / (sampleSize * 2) >= height)
+            sampleSize *= 2;
+        return sampleSize;
+    }
+
+    private static Bitmap decodeStream(ContentResolver resolver,
+                                       Uri uri,
+                                       BitmapFactory.Options options) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null)
+            throw new FileNotFoundException(uri.toString());
+        try {
+            return tracked(BitmapFactory.decodeStream(in, null, options));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Scale to required width and rotate in one draw, decoded bitmap goes back to the pool
+     *
+     * @param bm            decoded bitmap
+     * @param requiredWidth width before rotation, -1 keeps size
+     * @param degrees       clockwise rotation
+     * @return bitmap
+     */
+    private static Bitmap resizeRotated(Bitmap bm, int requiredWidth, int degrees) {
+        if (requiredWidth <= 0 && degrees == 0)
+            return bm;
+        HyperBitmapTransform.Builder builder = new HyperBitmapTransform.Builder()
+                .setRotation(degrees)
+                .setFilter(degrees != 0);
+        if (requiredWidth > 0) {
+            int height = (int) ((float) bm.getHeight() * requiredWidth / bm.getWidth());
+            if (degrees % 180 != 0)
+                builder.setTargetSize(height, requiredWidth);
+            else
+                builder.setTargetSize(requiredWidth, height);
+        }
+        Bitmap result;
+        try {
+            result = builder.build().apply(bm);
+        } catch (OutOfMemoryError error) {
+            HyperLog.getInstance().e(TAG, "resizeRotated", error.toString());
+            return bm;
+        }
+        release(bm, result);
+        return result;
     }
 
     /**
@@ -221,8 +470,14 @@ public class HyperImageProcessing {
                 BitmapFactory.Options options = new BitmapFactory.Options();
                 options.inJustDecodeBounds = true;
                 BitmapFactory.decodeFileDescriptor(fileDescriptor, null, options);
-                options = prepareOptions(options, reqWidth);
-                b = BitmapFactory.decodeFileDescriptor(fileDescriptor, null, options);
+                options = prepareOptions(options, reqWidth, true);
+                try {
+                    b = tracked(BitmapFactory.decodeFileDescriptor(fileDescriptor, null, options));
+                } catch (IllegalArgumentException e) {
+                    // pooled bitmap can not hold the image, decode into a new one
+                    returnReused(options);
+                    b = tracked(BitmapFactory.decodeFileDescriptor(fileDescriptor, null, options));
+                }
                 return b;
             } catch (OutOfMemoryError error) {
                 HyperLog.getInstance().e(TAG, "decodeBitmapFromFileDescriptor", error.toString());
@@ -239,20 +494,14 @@ public class HyperImageProcessing {
     public static Bitmap rotateImage(Bitmap bmp, int orientation) {
         Bitmap correctBmp = bmp;
         try {
-            int angle = 0;
-
-            if (orientation == ExifInterface.ORIENTATION_ROTATE_90) {
-                angle = 90;
-            } else if (orientation == ExifInterface.ORIENTATION_ROTATE_180) {
-                angle = 180;
-            } else if (orientation == ExifInterface.ORIENTATION_ROTATE_270) {
-                angle = 270;
+            int angle = getRotationDegrees(orientation);
+            if (angle != 0) {
+                correctBmp = new HyperBitmapTransform.Builder()
+                        .setRotation(angle)
+                        .build()
+                        .apply(bmp);
             }
 
-            Matrix mat = new Matrix();
-            mat.postRotate(angle);
-            correctBmp = createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), mat, true);
-
         } catch (OutOfMemoryError oom) {
             HyperLog.getInstance().e(TAG, "rotateImage", oom.toString());
         } catch (Exception e) {
@@ -261,6 +510,21 @@ public class HyperImageProcessing {
         return correctBmp;
     }
 
+    /**
+     * @param orientation EXIF orientation
+     * @return clockwise rotation in degrees
+     */
+    private static int getRotationDegrees(int orientation) {
+        if (orientation == ExifInterface.ORIENTATION_ROTATE_90) {
+            return 90;
+        } else if (orientation == ExifInterface.ORIENTATION_ROTATE_180) {
+            return 180;
+        } else if (orientation == ExifInterface.ORIENTATION_ROTATE_270) {
+            return 270;
+        }
+        return 0;
+    }
+
     /**
      * Rotate an image if required.
      *
@@ -318,8 +582,10 @@ public class HyperImageProcessing {
             Uri uri = Uri.fromFile(pictureFile);
             if (uri != null) {
                 int orientation = getOrientation(uri);
-                if (orientation != 0) {
-                    return rotateImage(bitmap, orientation);
+                if (orientation != 0 && bitmap != null) {
+                    Bitmap rotated = rotateImage(bitmap, orientation);
+                    release(bitmap, rotated);
+                    return rotated;
                 }
             }
         }
@@ -339,8 +605,10 @@ public class HyperImageProcessing {
             try {
                 bitmap = readBitmapFromUri(uri, width);
                 int orientation = getOrientation(uri);
-                if (orientation != 0) {
-                    return rotateImage(bitmap, orientation);
+                if (orientation != 0 && bitmap != null) {
+                    Bitmap rotated = rotateImage(bitmap, orientation);
+                    release(bitmap, rotated);
+                    return rotated;
                 } else {
                     return bitmap;
                 }
@@ -359,13 +627,24 @@ public class HyperImageProcessing {
      * @return bitmap
      */
     public static Bitmap getBitmapFromUriRotated(Uri uri, int width) {
+        return getBitmapFromUriRotated(uri, width, null);
+    }
+
+    /**
+     * @param bounds bounds from {@link #decodeBounds(Uri)} or null to read them
+     */
+    static Bitmap getBitmapFromUriRotated(Uri uri, int width, BitmapFactory.Options bounds) {
         Bitmap bitmap = null;
         if (uri != null) {
             try {
-                bitmap = getBitmapFromUri(uri, width);
-                int orientation = getOrientation(uri);
-                if (orientation != 0) {
-                    bitmap = rotateImage(bitmap, orientation);
+                int degrees = getRotationDegrees(getOrientation(uri));
+                if (degrees == 0) {
+                    bitmap = getBitmapFromUri(uri, width, bounds);
+                } else {
+                    // decoded once and resized with the rotation, cached bitmap only rotated
+                    Bitmap cached = getCached(uri.toString(), width);
+                    bitmap = cached != null ? resizeRotated(cached, -1, degrees)
+                            : decodeBitmapFromUri(uri, width, degrees, bounds);
                 }
             } catch (Exception e) {
                 e.printStackTrace();
@@ -375,39 +654,13 @@ public class HyperImageProcessing {
     }
 
     /**
-     * Get image orientation
+     * Get image orientation, read from the image header without copying the file
      *
      * @param uri uri
      * @return orientation
      */
     public static int getOrientation(Uri uri) {
-        int orientation = 0;
-        if (uri != null) {
-            try {
-                ExifInterface exif = null;
-
-                Context context = HyperApp.getInstance().getApplicationContext();
-                String realImgPath;
-                realImgPath = HyperFileManager.getFilePathFromUri(context,
-                        uri,
-                        context.getCacheDir());
-
-                File pictureFile = null;
-                if (realImgPath != null) {
-                    pictureFile = new File(realImgPath);
-                }
-                if (pictureFile != null) {
-                    exif = new ExifInterface(pictureFile.getAbsolutePath());
-                }
-                if (exif != null) {
-                    orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface
-                            .ORIENTATION_NORMAL);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-        return orientation;
+        return HyperExifOrientation.get(uri);
     }
 
     /**
@@ -474,6 +727,65 @@ public class HyperImageProcessing {
         return null;
     }
 
+    /**
+     * Save bitmap with the highest quality that fits max bytes, see {@link HyperSizeEncoder}
+     *
+     * @param bitmap   bitmap
+     * @param file     file
+     * @param maxBytes max file size
+     * @param tryWebp  also try WEBP and keep the better format
+     * @return image path or null if bitmap does not fit even at the lowest quality
+     */
+    public static String compressBitmapToSize(Bitmap bitmap,
+                                              File file,
+                                              long maxBytes,
+                                              boolean tryWebp) {
+        HyperSizeEncoder.Result result = null;
+        try {
+            result = HyperSizeEncoder.encode(bitmap, maxBytes, HyperSizeEncoder.DEFAULT_TOLERANCE,
+                    tryWebp);
+            if (result.fits())
+                return result.writeTo(file);
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "compressBitmapToSize", e);
+        } catch (OutOfMemoryError e) {
+            HyperLog.getInstance().e(TAG, "compressBitmapToSize", e.getMessage());
+        } finally {
+            if (result != null)
+                result.recycle();
+        }
+        return null;
+    }
+
+    /**
+     * Compress bitmap directly to a stream, e.g. request body, without a temp file. Writes go
+     * through a large reused buffer.
+     *
+     * @param bitmap   bitmap
+     * @param out      target stream, stays open
+     * @param format   format
+     * @param quality  quality
+     * @param listener progress of written bytes, total is not known, may be null
+     * @return true if bitmap was written
+     */
+    public static boolean compressBitmapToStream(Bitmap bitmap,
+                                                 OutputStream out,
+                                                 Bitmap.CompressFormat format,
+                                                 int quality,
+                                                 OnTransferProgress listener) {
+        HyperProgressOutputStream stream = new HyperProgressOutputStream(out, -1, listener);
+        try {
+            boolean written = bitmap.compress(format, quality, stream);
+            stream.finish();
+            return written;
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "compressBitmapToStream", e);
+        } catch (OutOfMemoryError e) {
+            HyperLog.getInstance().e(TAG, "compressBitmapToStream", e.getMessage());
+        }
+        return false;
+    }
+
     /**
      * Crop To Square
      *
@@ -491,7 +803,10 @@ public class HyperImageProcessing {
             cropW = Math.max(cropW, 0);
             int cropH = (height - width) / 2;
             cropH = Math.max(cropH, 0);
-            b = createBitmap(bitmap, cropW, cropH, newWidth, newHeight);
+            b = new HyperBitmapTransform.Builder()
+                    .setCrop(new Rect(cropW, cropH, cropW + newWidth, cropH + newHeight))
+                    .build()
+                    .apply(bitmap);
         } catch (OutOfMemoryError error) {
             HyperLog.getInstance().e(TAG, "cropToSquare", error.toString());
             b = bitmap;
@@ -519,13 +834,11 @@ public class HyperImageProcessing {
         if (bm == null)
             return null;
         try {
-            int width = bm.getWidth();
-            int height = bm.getHeight();
-            float scaleWidth = ((float) newWidth) / width;
-            float scaleHeight = ((float) newHeight) / height;
-            Matrix matrix = new Matrix();
-            matrix.postScale(scaleWidth, scaleHeight);
-            b = Bitmap.createBitmap(bm, 0, 0, width, height, matrix, false);
+            b = new HyperBitmapTransform.Builder()
+                    .setTargetSize(newWidth, newHeight)
+                    .setFilter(false)
+                    .build()
+                    .apply(bm);
         } catch (OutOfMemoryError error) {
             HyperLog.getInstance().e(TAG, "getResizedBitmap", error.toString());
             b = bm;
@@ -630,49 +943,153 @@ public class HyperImageProcessing {
 
     /**
      * Decode Bitmap From Input Stream - this method must run in background thread
+     * <p>
+     * Image is downloaded once, bounds and pixels are decoded from the same stream. If the
+     * bounds decode reads more than the first 256KB, e.g. an image with a huge EXIF block, the
+     * stream can not be rewound and the image is downloaded a second time.
      *
      * @param url      url
      * @param reqWidth required width
      * @return bitmap
      */
     public static Bitmap decodeBitmapFromInputStream(String url, int reqWidth) {
-        Bitmap b;
-        BitmapFactory.Options options = null;
+        Bitmap b = getCached(url, reqWidth);
+        if (b != null)
+            return b;
+        if (HyperDiskCache.getInstance().isEnabled())
+            b = decodeBitmapFromDiskCache(url, reqWidth);
+        if (b == null)
+            b = downloadBitmap(url, reqWidth);
+        return putCached(url, reqWidth, b);
+    }
+
+    /**
+     * Decode image through {@link HyperDiskCache}. Original is downloaded once and kept, the
+     * decoded variant of each required width is kept too so it is not decoded from the full
+     * image again.
+     *
+     * @return bitmap or null if image can not be cached
+     */
+    private static Bitmap decodeBitmapFromDiskCache(String url, int reqWidth) {
+        HyperDiskCache disk = HyperDiskCache.getInstance();
+        String variantKey = reqWidth > 0 ? HyperDiskCache.key(url, String.valueOf(reqWidth))
+                : null;
+        if (variantKey != null) {
+            File variant = disk.get(variantKey);
+            if (variant != null) {
+                Bitmap b = decodeFile(variant.getPath(), -1);
+                if (b != null)
+                    return b;
+                disk.remove(variantKey);
+            }
+        }
+
+        String originalKey = HyperDiskCache.key(url);
+        File original = disk.get(originalKey);
+        if (original == null) {
+            InputStream stream = null;
+            try {
+                stream = HyperDownloadStreamer.getInputStream(url);
+                if (stream != null)
+                    original = disk.put(originalKey, stream);
+            } catch (IOException e) {
+                HyperLog.getInstance().e(TAG, "decodeBitmapFromDiskCache", e);
+            } finally {
+                if (stream != null) {
+                    try {
+                        stream.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+        if (original == null)
+            return null;
+
+        Bitmap b = decodeFile(original.getPath(), reqWidth);
+        if (b != null && variantKey != null)
+            storeVariant(disk, variantKey, b);
+        return b;
+    }
+
+    private static void storeVariant(HyperDiskCache disk, String key, Bitmap bitmap) {
+        OutputStream out = null;
+        File tmp = null;
+        try {
+            tmp = disk.createTempFile();
+            out = new FileOutputStream(tmp);
+            boolean written = bitmap.compress(bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG
+                    : Bitmap.CompressFormat.JPEG, 90, out);
+            out.close();
+            out = null;
+            if (written)
+                disk.commit(key, tmp);
+            else
+                tmp.delete();
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "storeVariant", e);
+            if (tmp != null)
+                tmp.delete();
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Falls back to a second download when the stream can not be reset to the mark, i.e. the
+     * bounds decode read more than {@link #HEADER_LIMIT} bytes
+     */
+    private static Bitmap downloadBitmap(String url, int reqWidth) {
+        Bitmap b = null;
+        InputStream stream = null;
         try {
-            InputStream stream = HyperDownloadStreamer.getInputStream(url);
+            stream = HyperDownloadStreamer.getInputStream(url);
             if (stream != null) {
-                stream.mark(stream.available());
+                BufferedInputStream buffered = new BufferedInputStream(stream, STREAM_BUFFER_SIZE);
+                // keep only the bytes read by the bounds decode, not the whole image
+                buffered.mark(HEADER_LIMIT);
+                stream = buffered;
                 // First decode with inJustDecodeBounds=true to check dimensions
-                options = new BitmapFactory.Options();
+                BitmapFactory.Options options = new BitmapFactory.Options();
                 options.inJustDecodeBounds = true;
                 BitmapFactory.decodeStream(stream, null, options);
 
                 options = prepareOptions(options, reqWidth);
-                // Decode bitmap with inSampleSize set
-                stream.reset();
-                b = BitmapFactory.decodeStream(stream, null, options);
-                stream.close();
-                HyperLog.getInstance().d(TAG, "decodeBitmapFromInputStream", "success");
-                return b;
+                try {
+                    stream.reset();
+                } catch (IOException e) {
+                    // header longer than HEADER_LIMIT, download again with known sample size
+                    HyperLog.getInstance().w(TAG, "decodeBitmapFromInputStream",
+                            "header over " + HEADER_LIMIT + " bytes, downloading again");
+                    stream.close();
+                    stream = HyperDownloadStreamer.getInputStream(url);
+                }
+                // Decode bitmap with inSampleSize set, from the same stream
+                if (stream != null)
+                    b = tracked(BitmapFactory.decodeStream(stream, null, options));
+                HyperLog.getInstance().d(TAG, "decodeBitmapFromInputStream",
+                        b != null ? "success" : "fail");
             } else {
                 HyperLog.getInstance().e(TAG, "decodeBitmapFromInputStream", "fail");
             }
         } catch (OutOfMemoryError error) {
             HyperLog.getInstance().e(TAG, "decodeBitmapFromInputStream", error.getMessage());
         } catch (IOException e) {
-            try {
-                InputStream inputStream = HyperDownloadStreamer.getInputStream(url);
-                b = BitmapFactory
-                        .decodeStream(inputStream, null, prepareOptions(options, reqWidth));
-                inputStream.close();
-                HyperLog.getInstance().e(TAG, "decodeBitmapFromInputStream",
-                        "success, but with errors: " + e);
-                return b;
-            } catch (IOException e1) {
-                HyperLog.getInstance().e(TAG, "decodeBitmapFromInputStream", e1);
+            HyperLog.getInstance().e(TAG, "decodeBitmapFromInputStream", e);
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
             }
         }
-        return null;
+        return b;
     }
 
     /**
@@ -684,13 +1101,45 @@ public class HyperImageProcessing {
      */
     private static BitmapFactory.Options prepareOptions(BitmapFactory.Options options,
                                                         int reqWidth) {
+        return prepareOptions(options, reqWidth, false);
+    }
+
+    /**
+     * Prepare Bitmap Options
+     *
+     * @param options  input options
+     * @param reqWidth required width
+     * @param reuse    decode into a bitmap from {@link HyperBitmapPool}. Only for sources
+     *                 that can be decoded again if the pooled bitmap does not fit.
+     * @return options
+     */
+    private static BitmapFactory.Options prepareOptions(BitmapFactory.Options options,
+                                                        int reqWidth,
+                                                        boolean reuse) {
         // Calculate inSampleSize
+        int sampleSize = 1;
+        if (options != null && reqWidth > -1)
+            sampleSize = calculateInSampleSize(options, reqWidth);
+        return prepareSampledOptions(options, sampleSize, reuse);
+    }
+
+    /**
+     * Prepare Bitmap Options for a chosen sample size
+     *
+     * @param options    options with bounds or null
+     * @param sampleSize sample size for the required size, raised if the decode does not fit
+     *                   the {@link HyperBitmapMemoryGovernor} budget
+     * @param reuse      decode into a bitmap from {@link HyperBitmapPool}
+     * @return options
+     */
+    private static BitmapFactory.Options prepareSampledOptions(BitmapFactory.Options options,
+                                                               int sampleSize,
+                                                               boolean reuse) {
         if (options != null) {
-            if (reqWidth > -1) {
-                options.inSampleSize = calculateInSampleSize(options, reqWidth);
-            } else {
-                options.inSampleSize = 1;
-            }
+            // decode smaller rather than run out of memory
+            options.inSampleSize = HyperBitmapMemoryGovernor.getInstance().adjustSampleSize(
+                    options.outWidth, options.outHeight, sampleSize,
+                    decodedBytesPerPixel(options.outMimeType));
         } else {
             options = new BitmapFactory.Options();
             // set default sample size
@@ -702,10 +1151,83 @@ public class HyperImageProcessing {
         }
         // Decode bitmap with inSampleSize set
         options.inJustDecodeBounds = false;
-        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inPreferredConfig = DECODE_CONFIG;
+        if (reuse)
+            HyperBitmapPool.getInstance().prepareReuse(options);
         return options;
     }
 
+    /**
+     * @param mimeType mime type from the bounds decode or the image header
+     * @return bytes per pixel of the decoded bitmap, formats that may have alpha are not
+     * decoded to {@link #DECODE_CONFIG}
+     */
+    static int decodedBytesPerPixel(String mimeType) {
+        if ("image/jpeg".equals(mimeType) || "image/heif".equals(mimeType)
+                || "image/heic".equals(mimeType))
+            return HyperBitmapPool.bytesPerPixel(DECODE_CONFIG);
+        return HyperBitmapPool.bytesPerPixel(Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * @return bitmap, tracked by {@link HyperBitmapMemoryGovernor}
+     */
+    private static Bitmap tracked(Bitmap bitmap) {
+        return HyperBitmapMemoryGovernor.getInstance().track(bitmap);
+    }
+
+    /**
+     * Give unused decode target back to the pool before decoding again
+     */
+    private static void returnReused(BitmapFactory.Options options) {
+        HyperBitmapPool.getInstance().put(options.inBitmap);
+        options.inBitmap = null;
+    }
+
+    /**
+     * Give intermediate bitmap of a flow to {@link HyperBitmapPool}, unless it is the result or
+     * it may be used by others through {@link HyperBitmapCache}
+     *
+     * @param intermediate bitmap no longer needed by the flow
+     * @param result       bitmap returned by the flow
+     */
+    private static void release(Bitmap intermediate, Bitmap result) {
+        if (intermediate == null || intermediate == result
+                || HyperBitmapCache.getInstance().isShared(intermediate))
+            return;
+        HyperBitmapPool.getInstance().put(intermediate);
+    }
+
+    /**
+     * Look up memory cache only, without decoding
+     *
+     * @param source   source as keyed by the decode method, e.g. "file:" + path or url
+     * @param reqWidth required width
+     * @return cached bitmap or null
+     */
+    static Bitmap peekCached(String source, int reqWidth) {
+        if (source == null || !HyperBitmapCache.getInstance().isEnabled())
+            return null;
+        // a miss is counted by the decode that follows
+        return HyperBitmapCache.getInstance().peek(source, reqWidth, DECODED_CONFIGS);
+    }
+
+    private static Bitmap getCached(String source, int reqWidth) {
+        if (source == null || !HyperBitmapCache.getInstance().isEnabled())
+            return null;
+        return HyperBitmapCache.getInstance().get(source, reqWidth, DECODED_CONFIGS);
+    }
+
+    /**
+     * Cache bitmap under the config it was actually decoded to
+     */
+    private static Bitmap putCached(String source, int reqWidth, Bitmap bitmap) {
+        if (source != null && bitmap != null && HyperBitmapCache.getInstance().isEnabled())
+            HyperBitmapCache.getInstance().put(
+                    HyperBitmapCache.key(source, reqWidth, bitmap.getConfig()), bitmap);
+        return bitmap;
+    }
+
     public static Bitmap combineImages(Bitmap bmBack,
                                        Bitmap bmFront,
                                        float frontRatio,
@@ -713,49 +1235,23 @@ public class HyperImageProcessing {
         float width = bmBack.getWidth();
         Bitmap b = null;
         if (bmFront != null) {
-            float avatarWith = bmFront.getWidth();
-            float avatarHeight = bmFront.getHeight();
-
-            if (avatarWith != avatarHeight) {
-                bmFront = cropToSquare(bmFront);
-                avatarWith = bmFront.getWidth();
-                avatarHeight = bmFront.getHeight();
-            }
-
-            Bitmap avatarResized;
-            float avWith;
-            float avHeight;
-
-            avWith = width * frontRatio;
-            double k = avWith / avatarWith;
-
-            if (k > 1) {
-                avHeight = (float) k * avatarHeight;
-                if (avatarWith > avatarHeight) {
-                    avHeight = width * frontRatio;
-                    k = avHeight / avatarHeight;
-                    avWith = (float) k * avatarWith;
-                }
-            } else {
-                if (avatarWith > avatarHeight) {
-                    avHeight = width * frontRatio;
-                    k = avHeight / avatarHeight;
-                    avWith = (float) k * avatarWith;
-                } else {
-                    avHeight = (float) k * avatarHeight;
-                }
-            }
-
-            if (avatarWith != 1) {
-                avatarResized = getResizedBitmap(bmFront, (int) avWith,
-                        (int) avHeight);
-            } else {
-                avatarResized = getResizedBitmap(bmFront, (int) (width * frontRatio),
-                        (int) (width * frontRatio));
+            // crop, resize and circle mask in one draw, frontRatio of the back width
+            int side = (int) (width * frontRatio);
+            Bitmap avatar;
+            try {
+                avatar = new HyperBitmapTransform.Builder()
+                        .setSquareCrop(true)
+                        .setTargetSize(side, side)
+                        .setCircle(true)
+                        .build()
+                        .apply(bmFront);
+            } catch (OutOfMemoryError oom) {
+                HyperLog.getInstance().e(TAG, "combineImages", oom.toString());
+                return null;
             }
-
-            Bitmap bitmap = getCircleBitmap(avatarResized);
-            b = overlay(bmBack, bitmap, width / frontOffset, width / frontOffset);
+            b = overlay(bmBack, avatar, width / frontOffset, width / frontOffset);
+            if (b != null && avatar != bmFront)
+                release(avatar, b);
         }
         return b;
     }
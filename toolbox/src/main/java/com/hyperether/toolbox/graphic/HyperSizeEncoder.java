@@ -0,0 +1,205 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import com.hyperether.toolbox.streaming.HyperByteArrayOutputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes a bitmap to fit a byte budget. Quality is binary searched for the highest value that
+ * fits, optionally for WEBP and JPEG both. Every attempt is encoded to a reused in memory
+ * buffer, only the chosen one is written out.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperSizeEncoder {
+
+    public static final int MIN_QUALITY = 10;
+    public static final int MAX_QUALITY = 100;
+    public static final float DEFAULT_TOLERANCE = 0.1f;
+
+    /**
+     * Chosen encoding. Call {@link #recycle()} when it is written.
+     */
+    public static class Result {
+        private final Bitmap.CompressFormat format;
+        private final int quality;
+        private final boolean fits;
+        private HyperByteArrayOutputStream data;
+
+        private Result(Bitmap.CompressFormat format,
+                       int quality,
+                       boolean fits,
+                       HyperByteArrayOutputStream data) {
+            this.format = format;
+            this.quality = quality;
+            this.fits = fits;
+            this.data = data;
+        }
+
+        public Bitmap.CompressFormat getFormat() {
+            return format;
+        }
+
+        public int getQuality() {
+            return quality;
+        }
+
+        /**
+         * @return false if even {@link #MIN_QUALITY} is over the budget
+         */
+        public boolean fits() {
+            return fits;
+        }
+
+        /**
+         * @return encoded bytes
+         */
+        public int getSize() {
+            return data.size();
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            data.writeTo(out);
+        }
+
+        /**
+         * @return file path
+         */
+        public String writeTo(File file) throws IOException {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                data.writeTo(out);
+            } finally {
+                out.close();
+            }
+            return file.getPath();
+        }
+
+        /**
+         * @return copy of encoded bytes
+         */
+        public byte[] toByteArray() {
+            return data.toByteArray();
+        }
+
+        /**
+         * Give buffer back for reuse, result can not be used afterwards
+         */
+        public void recycle() {
+            HyperByteArrayOutputStream.recycle(data);
+            data = null;
+        }
+    }
+
+    /**
+     * Encode bitmap with the highest quality that fits max bytes. Search stops early when
+     * size is within tolerance below max bytes.
+     *
+     * @param bitmap    bitmap
+     * @param maxBytes  byte budget
+     * @param tolerance accepted fraction under the budget, e.g. {@link #DEFAULT_TOLERANCE}
+     * @param tryWebp   also try WEBP and keep the format with the higher fitting quality. JPEG
+     *                  is skipped for bitmaps with alpha.
+     * @return result, smallest encoding if nothing fits
+     */
+    public static Result encode(Bitmap bitmap, long maxBytes, float tolerance, boolean tryWebp) {
+        Result result = null;
+        if (!tryWebp || !bitmap.hasAlpha())
+            result = search(compressor(bitmap, Bitmap.CompressFormat.JPEG),
+                    Bitmap.CompressFormat.JPEG, maxBytes, tolerance);
+        if (tryWebp) {
+            Bitmap.CompressFormat format = getWebpFormat();
+            Result webp = search(compressor(bitmap, format), format, maxBytes, tolerance);
+            if (result == null || isBetter(webp, result)) {
+                if (result != null)
+                    result.recycle();
+                result = webp;
+            } else {
+                webp.recycle();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encodes the image at one quality, so the search does not depend on a bitmap
+     */
+    interface Encoder {
+        void encode(int quality, OutputStream out);
+    }
+
+    private static Encoder compressor(final Bitmap bitmap, final Bitmap.CompressFormat format) {
+        return new Encoder() {
+            @Override
+            public void encode(int quality, OutputStream out) {
+                bitmap.compress(format, quality, out);
+            }
+        };
+    }
+
+    static boolean isBetter(Result a, Result b) {
+        if (a.fits != b.fits)
+            return a.fits;
+        if (!a.fits)
+            return a.getSize() < b.getSize();
+        if (a.quality != b.quality)
+            return a.quality > b.quality;
+        return a.getSize() < b.getSize();
+    }
+
+    /**
+     * @param format format of the encoder, stored in the result
+     */
+    static Result search(Encoder encoder,
+                         Bitmap.CompressFormat format,
+                         long maxBytes,
+                         float tolerance) {
+        long minAccepted = (long) (maxBytes * (1 - tolerance));
+        HyperByteArrayOutputStream best = null;
+        int bestQuality = -1;
+        HyperByteArrayOutputStream attempt = HyperByteArrayOutputStream.obtain();
+        int low = MIN_QUALITY;
+        int high = MAX_QUALITY;
+        try {
+            while (low <= high) {
+                int quality = (low + high) >>> 1;
+                attempt.reset();
+                encoder.encode(quality, attempt);
+                if (attempt.size() <= maxBytes) {
+                    // fits, keep it and look for a higher quality
+                    HyperByteArrayOutputStream previous = best;
+                    best = attempt;
+                    bestQuality = quality;
+                    attempt = previous != null ? previous : HyperByteArrayOutputStream.obtain();
+                    if (best.size() >= minAccepted)
+                        break;
+                    low = quality + 1;
+                } else {
+                    high = quality - 1;
+                }
+            }
+            if (best != null)
+                return new Result(format, bestQuality, true, best);
+            // nothing fits, search ended with MIN_QUALITY, the smallest encoding
+            Result result = new Result(format, MIN_QUALITY, false, attempt);
+            attempt = null;
+            return result;
+        } finally {
+            if (attempt != null)
+                HyperByteArrayOutputStream.recycle(attempt);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat getWebpFormat() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R)
+            return Bitmap.CompressFormat.WEBP_LOSSY;
+        return Bitmap.CompressFormat.WEBP;
+    }
+}
@@ -0,0 +1,323 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.hyperether.toolbox.HyperLog;
+import com.hyperether.toolbox.storage.HyperDiskCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thumbnails of many images, decoded in parallel on all cores with
+ * {@link HyperImageProcessing#getBitmapFromUriRotated(Uri, int)}.
+ * <p>
+ * Decodes are admitted by a pixel memory budget shared by all batches, so parallel decodes do
+ * not run out of memory. While {@link HyperBitmapMemoryGovernor} is enabled the budget is the
+ * part of its budget not used by other bitmaps. Each thumbnail is passed to the listener when it is ready and can be
+ * written to a file.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperThumbnailBatch {
+
+    private static final String TAG = HyperThumbnailBatch.class.getSimpleName();
+
+    // square ARGB_8888 thumbnail and its copy, for images whose bounds can not be read
+    private static final int UNKNOWN_PEAK_BITMAPS = 2;
+    private static final int UNKNOWN_BYTES_PER_PIXEL = 4;
+
+    private static final Object budgetLock = new Object();
+    private static long budget = getDefaultBudget();
+    private static long used;
+    private static ExecutorService executor;
+
+    private final List<Uri> uris;
+    private final int width;
+    private final File outputDir;
+    private final Bitmap.CompressFormat format;
+    private final int quality;
+    private final OnThumbnailReady listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger remaining;
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    private HyperThumbnailBatch(List<Uri> uris,
+                                int width,
+                                File outputDir,
+                                Bitmap.CompressFormat format,
+                                int quality,
+                                OnThumbnailReady listener) {
+        this.uris = new ArrayList<>(uris);
+        this.width = width;
+        this.outputDir = outputDir;
+        this.format = format;
+        this.quality = quality;
+        this.listener = listener;
+        this.remaining = new AtomicInteger(this.uris.size());
+    }
+
+    /**
+     * Start batch without file output
+     *
+     * @param uris     source images
+     * @param width    thumbnail width, height keeps aspect ratio
+     * @param listener listener
+     * @return batch, can be cancelled
+     */
+    public static HyperThumbnailBatch start(List<Uri> uris,
+                                            int width,
+                                            OnThumbnailReady listener) {
+        return start(uris, width, null, Bitmap.CompressFormat.JPEG, 0, listener);
+    }
+
+    /**
+     * Start batch and write each thumbnail to a file in output dir
+     *
+     * @param uris      source images
+     * @param width     thumbnail width, height keeps aspect ratio
+     * @param outputDir directory for thumbnail files, null for no files
+     * @param format    file format
+     * @param quality   compress quality
+     * @param listener  listener
+     * @return batch, can be cancelled
+     */
+    public static HyperThumbnailBatch start(List<Uri> uris,
+                                            int width,
+                                            File outputDir,
+                                            Bitmap.CompressFormat format,
+                                            int quality,
+                                            OnThumbnailReady listener) {
+        HyperThumbnailBatch batch = new HyperThumbnailBatch(uris, width, outputDir, format,
+                quality, listener);
+        if (batch.uris.isEmpty()) {
+            batch.finish();
+            return batch;
+        }
+        if (outputDir != null && !outputDir.exists() && !outputDir.mkdirs())
+            HyperLog.getInstance().e(TAG, "start", "can not create " + outputDir);
+        ExecutorService executor = getExecutor();
+        for (final Uri uri : batch.uris) {
+            final HyperThumbnailBatch target = batch;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    target.process(uri);
+                }
+            });
+        }
+        return batch;
+    }
+
+    /**
+     * @return default budget, 1/4 of the max heap
+     */
+    public static long getDefaultBudget() {
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    /**
+     * Set budget shared by all batches, used while {@link HyperBitmapMemoryGovernor} is
+     * disabled
+     *
+     * @param bytes max bytes of bitmaps decoded at the same time
+     */
+    public static void setMemoryBudget(long bytes) {
+        synchronized (budgetLock) {
+            budget = bytes;
+            budgetLock.notifyAll();
+        }
+    }
+
+    public static long getMemoryBudget() {
+        synchronized (budgetLock) {
+            return budget;
+        }
+    }
+
+    /**
+     * Remaining thumbnails are skipped, listener is not called for them
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized (budgetLock) {
+            budgetLock.notifyAll();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void process(Uri uri) {
+        if (cancelled) {
+            done(false);
+            return;
+        }
+        // header is read once, for the cost and the decode
+        BitmapFactory.Options bounds = null;
+        try {
+            bounds = HyperImageProcessing.decodeBounds(uri);
+        } catch (IOException e) {
+            // decode reports the error
+        }
+        long cost = estimateCost(uri, bounds);
+        Bitmap bitmap = null;
+        String path = null;
+        if (acquire(cost)) {
+            try {
+                if (!cancelled) {
+                    bitmap = HyperImageProcessing.getBitmapFromUriRotated(uri, width, bounds);
+                    if (bitmap != null && outputDir != null)
+                        path = HyperImageProcessing.compressBitmapToFile(bitmap,
+                                getFile(uri), format, quality);
+                }
+            } catch (OutOfMemoryError error) {
+                HyperLog.getInstance().e(TAG, "process", error.toString());
+            } finally {
+                release(cost);
+            }
+        }
+        deliver(uri, bitmap, path);
+        done(bitmap != null);
+    }
+
+    /**
+     * @param bounds image bounds, null if they could not be read
+     * @return bytes of bitmaps alive at the same time during the decode: the sampled decode,
+     * the thumbnail scaled from it and the rotated copy of the thumbnail
+     */
+    private long estimateCost(Uri uri, BitmapFactory.Options bounds) {
+        if (bounds == null || bounds.outWidth <= 0 || bounds.outHeight <= 0)
+            return (long) width * width * UNKNOWN_BYTES_PER_PIXEL * UNKNOWN_PEAK_BITMAPS;
+        int bytesPerPixel = HyperImageProcessing.decodedBytesPerPixel(bounds.outMimeType);
+        int height = HyperImageProcessing.getTargetHeight(bounds, width, 0);
+        int sampleSize = HyperImageProcessing.getScaledSampleSize(bounds, width, height);
+        long sampled = (long) (bounds.outWidth / sampleSize) * (bounds.outHeight / sampleSize);
+        long output = (long) width * height;
+        if (HyperImageProcessing.getOrientation(uri) > ExifInterface.ORIENTATION_NORMAL)
+            output *= 2;
+        return (sampled + output) * bytesPerPixel;
+    }
+
+    private File getFile(Uri uri) {
+        String extension;
+        if (format == Bitmap.CompressFormat.PNG)
+            extension = ".png";
+        else if (format == Bitmap.CompressFormat.JPEG)
+            extension = ".jpg";
+        else
+            extension = ".webp";
+        return new File(outputDir,
+                HyperDiskCache.key(uri.toString(), String.valueOf(width)) + extension);
+    }
+
+    private void deliver(final Uri uri, final Bitmap bitmap, final String path) {
+        if (cancelled || listener == null)
+            return;
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!cancelled)
+                    listener.onThumbnail(uri, bitmap, path);
+            }
+        });
+    }
+
+    private void done(boolean success) {
+        if (success)
+            succeeded.incrementAndGet();
+        else if (!cancelled)
+            failed.incrementAndGet();
+        if (remaining.decrementAndGet() == 0)
+            finish();
+    }
+
+    private void finish() {
+        if (listener == null)
+            return;
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onFinished(succeeded.get(), failed.get());
+            }
+        });
+    }
+
+    /**
+     * Wait until cost fits the budget. Decode bigger than the whole budget runs alone.
+     *
+     * @return false if interrupted
+     */
+    private boolean acquire(long cost) {
+        synchronized (budgetLock) {
+            while (used > 0 && used + cost > getAdmissionBudget()) {
+                if (cancelled)
+                    return false;
+                try {
+                    budgetLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            used += cost;
+            return true;
+        }
+    }
+
+    /**
+     * Called with budgetLock held
+     */
+    private static long getAdmissionBudget() {
+        HyperBitmapMemoryGovernor governor = HyperBitmapMemoryGovernor.getInstance();
+        if (!governor.isEnabled())
+            return budget;
+        // running decodes are tracked by the governor too, they are counted in used already
+        return Math.max(0, governor.getBudget() - governor.getUsedBytes()) + used;
+    }
+
+    private static void release(long cost) {
+        synchronized (budgetLock) {
+            used -= cost;
+            budgetLock.notifyAll();
+        }
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count;
+
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, TAG + "-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+}
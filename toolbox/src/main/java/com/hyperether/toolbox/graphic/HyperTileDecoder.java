@@ -0,0 +1,312 @@
+package com.hyperether.toolbox.graphic;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.net.Uri;
+import android.util.LruCache;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Tiled decoder for images too big to decode whole, e.g. zoomable camera photos. Only tiles
+ * visible in the viewport are decoded, at the sample size matching the zoom, and kept in a
+ * byte bounded LRU cache of this decoder.
+ * <p>
+ * Methods that decode must run in background thread. Call {@link #recycle()} when done.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperTileDecoder {
+
+    private static final String TAG = HyperTileDecoder.class.getSimpleName();
+
+    public static final int DEFAULT_TILE_SIZE = 512;
+
+    private static final Bitmap.Config TILE_CONFIG = Bitmap.Config.RGB_565;
+
+    // open decoders, so tile caches can be cleared on memory pressure
+    private static final Set<HyperTileDecoder> decoders =
+            Collections.newSetFromMap(new WeakHashMap<HyperTileDecoder, Boolean>());
+
+    private final BitmapRegionDecoder decoder;
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private LruCache<String, Tile> cache;
+
+    /**
+     * Decoded part of the image
+     */
+    public static class Tile {
+        /**
+         * Tile bounds in image pixels
+         */
+        public final Rect region;
+        public final int sampleSize;
+        /**
+         * Tile pixels, region size divided by sample size. Owned by the decoder cache, do not
+         * recycle.
+         */
+        public final Bitmap bitmap;
+
+        Tile(Rect region, int sampleSize, Bitmap bitmap) {
+            this.region = region;
+            this.sampleSize = sampleSize;
+            this.bitmap = bitmap;
+        }
+    }
+
+    private HyperTileDecoder(BitmapRegionDecoder decoder, int tileSize, int cacheSize) {
+        this.decoder = decoder;
+        this.width = decoder.getWidth();
+        this.height = decoder.getHeight();
+        this.tileSize = tileSize;
+        this.cache = createCache(cacheSize);
+        synchronized (decoders) {
+            decoders.add(this);
+        }
+    }
+
+    /**
+     * Open image file
+     *
+     * @param path file path
+     * @return decoder or null if file can not be decoded
+     */
+    public static HyperTileDecoder fromFile(String path) {
+        if (path == null)
+            return null;
+        try {
+            return new HyperTileDecoder(BitmapRegionDecoder.newInstance(path, false),
+                    DEFAULT_TILE_SIZE, getDefaultCacheSize());
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "fromFile", e);
+        }
+        return null;
+    }
+
+    /**
+     * Open image from content or file uri
+     *
+     * @param uri uri
+     * @return decoder or null if uri can not be decoded
+     */
+    public static HyperTileDecoder fromUri(Uri uri) {
+        if (uri == null)
+            return null;
+        Context context = HyperApp.getInstance().getApplicationContext();
+        InputStream stream = null;
+        try {
+            stream = context.getContentResolver().openInputStream(uri);
+            if (stream == null)
+                return null;
+            return new HyperTileDecoder(BitmapRegionDecoder.newInstance(stream, false),
+                    DEFAULT_TILE_SIZE, getDefaultCacheSize());
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "fromUri: " + uri, e);
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return default tile cache size, 1/16 of the max heap
+     */
+    public static int getDefaultCacheSize() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+    }
+
+    /**
+     * Sample size for zoom, power of 2 so tiles of neighbour zoom levels line up
+     *
+     * @param scale displayed size / image size, 1 is full resolution
+     * @return sample size
+     */
+    public static int getSampleSize(float scale) {
+        int sampleSize = 1;
+        if (scale <= 0)
+            return sampleSize;
+        while (sampleSize * 2 * scale <= 1)
+            sampleSize *= 2;
+        return sampleSize;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Decode whole image at low resolution, e.g. to show while tiles are decoded
+     *
+     * @param maxSide max width and height of the result
+     * @return bitmap or null
+     */
+    public Bitmap decodePreview(int maxSide) {
+        float scale = (float) maxSide / Math.max(width, height);
+        return decodeRegion(new Rect(0, 0, width, height), getSampleSize(scale));
+    }
+
+    /**
+     * Get tiles covering the viewport, decoding the ones not in cache
+     *
+     * @param viewport visible part of the image in image pixels
+     * @param scale    displayed size / image size, 1 is full resolution
+     * @return visible tiles, tiles that can not be decoded are skipped
+     */
+    public List<Tile> getTiles(Rect viewport, float scale) {
+        List<Tile> tiles = new ArrayList<>();
+        int sampleSize = getSampleSize(scale);
+        for (Rect region : getTileRegions(viewport, tileSize * sampleSize, width, height)) {
+            Tile tile = getTile(region, sampleSize);
+            if (tile != null)
+                tiles.add(tile);
+        }
+        return tiles;
+    }
+
+    /**
+     * Grid cells of the image covering the viewport. Cells are aligned to multiples of side, so
+     * the same tile is found again while panning, cells on the right and bottom edge are cut to
+     * the image.
+     *
+     * @param viewport visible part of the image in image pixels
+     * @param side     cell side in image pixels, tile size times sample size
+     * @param width    image width
+     * @param height   image height
+     * @return cells row by row, empty if the viewport is outside of the image
+     */
+    static List<Rect> getTileRegions(Rect viewport, int side, int width, int height) {
+        List<Rect> regions = new ArrayList<>();
+        Rect visible = new Rect(viewport);
+        if (!visible.intersect(0, 0, width, height))
+            return regions;
+        for (int top = visible.top / side * side; top < visible.bottom; top += side) {
+            for (int left = visible.left / side * side; left < visible.right; left += side) {
+                regions.add(new Rect(left, top, Math.min(left + side, width),
+                        Math.min(top + side, height)));
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Set max size and drop all cached tiles
+     *
+     * @param maxBytes max total bytes of cached tiles
+     */
+    public synchronized void setCacheSize(int maxBytes) {
+        cache.evictAll();
+        cache = createCache(Math.max(1, maxBytes));
+    }
+
+    /**
+     * Drop all cached tiles
+     */
+    public synchronized void clearCache() {
+        cache.evictAll();
+    }
+
+    /**
+     * @return total bytes of cached tiles
+     */
+    public synchronized int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Drop cached tiles of all open decoders
+     */
+    public static void clearAllCaches() {
+        List<HyperTileDecoder> open;
+        synchronized (decoders) {
+            open = new ArrayList<>(decoders);
+        }
+        for (HyperTileDecoder decoder : open)
+            decoder.clearCache();
+    }
+
+    /**
+     * Release decoder and cached tiles, decoder can not be used afterwards
+     */
+    public void recycle() {
+        synchronized (decoders) {
+            decoders.remove(this);
+        }
+        clearCache();
+        synchronized (decoder) {
+            decoder.recycle();
+        }
+    }
+
+    public boolean isRecycled() {
+        return decoder.isRecycled();
+    }
+
+    private Tile getTile(Rect region, int sampleSize) {
+        String key = sampleSize + "/" + region.left + "/" + region.top;
+        synchronized (this) {
+            Tile tile = cache.get(key);
+            if (tile != null && !tile.bitmap.isRecycled())
+                return tile;
+        }
+        Bitmap bitmap = decodeRegion(region, sampleSize);
+        if (bitmap == null)
+            return null;
+        Tile tile = new Tile(region, sampleSize, bitmap);
+        synchronized (this) {
+            cache.put(key, tile);
+        }
+        return tile;
+    }
+
+    private Bitmap decodeRegion(Rect region, int sampleSize) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = TILE_CONFIG;
+        try {
+            // region decoder is not safe for concurrent decodes on older platforms
+            synchronized (decoder) {
+                if (decoder.isRecycled())
+                    return null;
+                return HyperBitmapMemoryGovernor.getInstance().track(
+                        decoder.decodeRegion(region, options));
+            }
+        } catch (OutOfMemoryError error) {
+            HyperLog.getInstance().e(TAG, "decodeRegion", error.toString());
+        } catch (IllegalArgumentException e) {
+            HyperLog.getInstance().e(TAG, "decodeRegion", e);
+        }
+        return null;
+    }
+
+    private static LruCache<String, Tile> createCache(int maxBytes) {
+        return new LruCache<String, Tile>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Tile value) {
+                return HyperBitmapCache.getByteCount(value.bitmap);
+            }
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Bitmap;
+
+/**
+ * Interface to receive images loaded by {@link HyperImageLoader}, called on the main thread
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public interface OnImageLoaded {
+    /**
+     * @param request finished request
+     * @param bitmap  loaded bitmap or null if image could not be decoded
+     */
+    void onLoaded(HyperImageLoader.Request request, Bitmap bitmap);
+}
@@ -0,0 +1,26 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+/**
+ * Interface to receive thumbnails of a {@link HyperThumbnailBatch}, called on the main thread
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public interface OnThumbnailReady {
+    /**
+     * @param uri    source image
+     * @param bitmap thumbnail or null if image could not be decoded
+     * @param path   file the thumbnail was written to, null if no output dir or write failed
+     */
+    void onThumbnail(Uri uri, Bitmap bitmap, String path);
+
+    /**
+     * Called once after the last thumbnail, also if batch was cancelled
+     *
+     * @param succeeded number of decoded thumbnails
+     * @param failed    number of images that could not be decoded
+     */
+    void onFinished(int succeeded, int failed);
+}
@@ -0,0 +1,84 @@
+package com.hyperether.toolbox.log;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Uncaught exception handler that dumps {@link HyperLogCrashTail} to crash-TIMESTAMP.txt in the
+ * log directory and then passes the exception to the previous handler
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogCrashHandler implements Thread.UncaughtExceptionHandler {
+
+    private static final String TAG = HyperLogCrashHandler.class.getSimpleName();
+
+    private static final long FLUSH_TIMEOUT_MS = 500;
+
+    private final Thread.UncaughtExceptionHandler previous;
+
+    private HyperLogCrashHandler(Thread.UncaughtExceptionHandler previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Install handler as default uncaught exception handler. Does nothing if already installed.
+     */
+    public static synchronized void install() {
+        Thread.UncaughtExceptionHandler current = Thread.getDefaultUncaughtExceptionHandler();
+        if (current instanceof HyperLogCrashHandler)
+            return;
+        Thread.setDefaultUncaughtExceptionHandler(new HyperLogCrashHandler(current));
+    }
+
+    /**
+     * @return directory for crash dumps or null if storage is not available
+     */
+    public static File getDir() {
+        File dir = HyperLogSegments.getDir();
+        if (dir == null) {
+            Context context = HyperApp.getInstance().getApplicationContext();
+            dir = context != null ? context.getFilesDir() : null;
+        }
+        return dir;
+    }
+
+    @Override
+    public void uncaughtException(Thread thread, Throwable ex) {
+        try {
+            // give the file sink a chance to write what is already queued
+            HyperLog.getInstance().flush(FLUSH_TIMEOUT_MS);
+            HyperLogCrashTail tail = HyperLog.getInstance().getCrashTail();
+            File dir = getDir();
+            if (tail != null && dir != null)
+                dump(tail, new File(dir, "crash-" + System.currentTimeMillis() + ".txt"),
+                        thread, ex);
+        } catch (Throwable t) {
+            Log.e(TAG, "uncaughtException: dump failed", t);
+        } finally {
+            if (previous != null)
+                previous.uncaughtException(thread, ex);
+        }
+    }
+
+    private static void dump(HyperLogCrashTail tail, File file, Thread thread, Throwable ex)
+            throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), "UTF-8"));
+        try {
+            tail.dump(out, thread, ex);
+        } finally {
+            out.close();
+        }
+    }
+}
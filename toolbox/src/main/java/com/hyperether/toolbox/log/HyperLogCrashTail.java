@@ -0,0 +1,124 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always on in-memory ring of the last N log entries, dumped to disk when the app crashes.
+ * <p>
+ * Storage is preallocated as parallel arrays, recording an entry is a sequence increment and a
+ * few array stores on the logging thread, with no locking and no allocation. Slot sequence
+ * markers let the dump skip slots that are being overwritten at the moment of the crash.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogCrashTail {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] levels;
+    private final String[] tags;
+    private final String[] methods;
+    private final String[] messages;
+    private final String[] threads;
+    private final AtomicLongArray sequences;
+    private final AtomicLong next = new AtomicLong();
+
+    private volatile int level = HyperLog.INFO;
+
+    /**
+     * @param capacity number of kept entries, rounded up to a power of two
+     */
+    public HyperLogCrashTail(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        timestamps = new long[size];
+        levels = new int[size];
+        tags = new String[size];
+        methods = new String[size];
+        messages = new String[size];
+        threads = new String[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, -1);
+    }
+
+    /**
+     * Set lowest severity kept in the tail. Default is INFO so DEBUG and VERBOSE messages are
+     * not built in release builds.
+     */
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public boolean isLoggable(int level) {
+        return HyperLog.priority(level) <= HyperLog.priority(this.level);
+    }
+
+    public void record(long timestamp, int level, String tag, String method, String message) {
+        long seq = next.getAndIncrement();
+        int index = (int) seq & mask;
+        sequences.set(index, -1);
+        timestamps[index] = timestamp;
+        levels[index] = level;
+        tags[index] = tag;
+        methods[index] = method;
+        messages[index] = message;
+        threads[index] = Thread.currentThread().getName();
+        sequences.set(index, seq);
+    }
+
+    /**
+     * Write kept entries, oldest first, followed by the crash stack trace
+     *
+     * @param out    output
+     * @param thread crashed thread, may be null
+     * @param ex     crash exception, may be null
+     * @throws IOException on write error
+     */
+    public void dump(Writer out, Thread thread, Throwable ex) throws IOException {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd-HH:mm:ss.SSS", Locale.getDefault());
+        Date date = new Date();
+        long end = next.get();
+        long start = Math.max(0, end - timestamps.length);
+        for (long seq = start; seq < end; seq++) {
+            int index = (int) seq & mask;
+            if (sequences.get(index) != seq)
+                continue;
+            long timestamp = timestamps[index];
+            int entryLevel = levels[index];
+            String tag = tags[index];
+            String method = methods[index];
+            String message = messages[index];
+            String threadName = threads[index];
+            // slot was overwritten while reading
+            if (sequences.get(index) != seq)
+                continue;
+            date.setTime(timestamp);
+            out.append(sdf.format(date)).append(' ')
+                    .append(HyperLogExporter.levelName(entryLevel)).append(" [")
+                    .append(threadName).append("] ")
+                    .append(tag).append('.').append(method).append(": ")
+                    .append(message).append('\n');
+        }
+        if (ex != null) {
+            date.setTime(System.currentTimeMillis());
+            out.append(sdf.format(date)).append(" CRASH [")
+                    .append(thread != null ? thread.getName() : "?").append("]\n");
+            StringWriter trace = new StringWriter();
+            ex.printStackTrace(new PrintWriter(trace));
+            out.append(trace.toString());
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.hyperether.toolbox.log;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log pipeline. Logging threads publish entries into a {@link HyperLogRingBuffer}, one
+ * background thread drains it in batches and fans every entry out to the registered
+ * {@link HyperLogSink}s. Each sink is flushed once per batch.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogDispatcher {
+
+    private static final String TAG = HyperLogDispatcher.class.getSimpleName();
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long FLUSH_WAIT_MS = 10;
+    private static final long TICK_INTERVAL_MS = 10000;
+
+    private final HyperLogRingBuffer ring;
+    private volatile HyperLogSink[] sinks = new HyperLogSink[0];
+    private volatile Ticker[] tickers = new Ticker[0];
+    private final AtomicLong dropped = new AtomicLong();
+    private final Object flushLock = new Object();
+
+    private final HyperLogRingBuffer.Handler fanOut = new HyperLogRingBuffer.Handler() {
+        @Override
+        public void onEntry(HyperLogEntry entry) {
+            dispatch(entry);
+        }
+    };
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile boolean idle;
+    // consumed sequence for which all sinks are flushed
+    private volatile long flushed;
+    private long nextTick;
+
+    public HyperLogDispatcher() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public HyperLogDispatcher(int capacity) {
+        ring = new HyperLogRingBuffer(capacity);
+    }
+
+    public synchronized void addSink(HyperLogSink sink) {
+        List<HyperLogSink> list = new ArrayList<>(Arrays.asList(sinks));
+        if (!list.contains(sink)) {
+            list.add(sink);
+            sinks = list.toArray(new HyperLogSink[0]);
+        }
+    }
+
+    public synchronized void removeSink(HyperLogSink sink) {
+        List<HyperLogSink> list = new ArrayList<>(Arrays.asList(sinks));
+        if (list.remove(sink))
+            sinks = list.toArray(new HyperLogSink[0]);
+    }
+
+    /**
+     * Add task called on the dispatcher thread about every {@value #TICK_INTERVAL_MS} ms
+     */
+    public synchronized void addTicker(Ticker ticker) {
+        List<Ticker> list = new ArrayList<>(Arrays.asList(tickers));
+        if (!list.contains(ticker)) {
+            list.add(ticker);
+            tickers = list.toArray(new Ticker[0]);
+        }
+    }
+
+    public synchronized void removeTicker(Ticker ticker) {
+        List<Ticker> list = new ArrayList<>(Arrays.asList(tickers));
+        if (list.remove(ticker))
+            tickers = list.toArray(new Ticker[0]);
+    }
+
+    /**
+     * @return true if at least one sink accepts entries of given level
+     */
+    public boolean isLoggable(int level) {
+        for (HyperLogSink sink : sinks) {
+            if (sink.isLoggable(level))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if at least one sink accepts entries of given level from a tag with
+     * explicitly set level
+     */
+    public boolean isLoggableForced(int level) {
+        for (HyperLogSink sink : sinks) {
+            if (sink.isLoggableForced(level))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Publish entry. Never blocks, entry is dropped and counted if the ring is full.
+     *
+     * @return false if entry was dropped
+     */
+    public boolean publish(long timestamp,
+                           int level,
+                           String tag,
+                           String method,
+                           String message,
+                           Throwable throwable,
+                           String threadName) {
+        return publish(timestamp, level, tag, method, message, throwable, threadName, 0);
+    }
+
+    /**
+     * Publish entry. Never blocks, entry is dropped and counted if the ring is full.
+     *
+     * @param flags {@link HyperLogEntry#FLAG_FORCED} if tag level is set explicitly, see
+     *              {@link HyperLogLevels}, {@link HyperLogEntry#FLAG_REMOTE} for entries
+     *              forwarded from another process
+     * @return false if entry was dropped
+     */
+    public boolean publish(long timestamp,
+                           int level,
+                           String tag,
+                           String method,
+                           String message,
+                           Throwable throwable,
+                           String threadName,
+                           int flags) {
+        ensureStarted();
+        if (!ring.publish(timestamp, level, tag, method, message, throwable, threadName,
+                flags)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (idle)
+            LockSupport.unpark(thread);
+        return true;
+    }
+
+    /**
+     * Block until every entry published before this call is written and flushed by all sinks
+     *
+     * @param timeoutMs max time to wait
+     * @return true if all entries are flushed
+     */
+    public boolean flush(long timeoutMs) {
+        Thread t = thread;
+        if (t == null)
+            return true;
+        long target = ring.getClaimed();
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (flushed < target) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0 || !t.isAlive())
+                return false;
+            LockSupport.unpark(t);
+            synchronized (flushLock) {
+                try {
+                    flushLock.wait(Math.min(left, FLUSH_WAIT_MS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Dispatch pending entries, close all sinks and stop the thread. Dispatcher is started again
+     * on the next {@link #publish}.
+     *
+     * @param timeoutMs max time to wait for pending entries
+     */
+    public void shutdown(long timeoutMs) {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            if (t == null)
+                return;
+            running = false;
+        }
+        LockSupport.unpark(t);
+        try {
+            // consumer clears the thread field itself, a thread that outlives the timeout
+            // keeps draining and is reused by the next publish
+            t.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return number of entries dropped because the ring was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void ensureStarted() {
+        if (running)
+            return;
+        synchronized (this) {
+            if (running)
+                return;
+            running = true;
+            if (thread != null) {
+                // consumer of the last shutdown is still alive, it sees running and continues,
+                // a second consumer would break the single consumer ring
+                LockSupport.unpark(thread);
+                return;
+            }
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    loop();
+                }
+            }, TAG);
+            t.setDaemon(true);
+            thread = t;
+            t.start();
+        }
+    }
+
+    private void loop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        try {
+            while (true) {
+                drainUntilStopped();
+                closeSinks();
+                synchronized (this) {
+                    // publish after shutdown may have set running again, keep consuming
+                    if (!running) {
+                        thread = null;
+                        return;
+                    }
+                }
+            }
+        } finally {
+            synchronized (this) {
+                if (thread == Thread.currentThread()) {
+                    // died on an error, next publish starts a new consumer
+                    thread = null;
+                    running = false;
+                }
+            }
+        }
+    }
+
+    private void drainUntilStopped() {
+        while (running || ring.hasPending()) {
+            int count = ring.drain(fanOut, MAX_BATCH_SIZE);
+            boolean ticked = tick();
+            if (count > 0 || ticked) {
+                reportDropped();
+                flushSinks();
+                continue;
+            }
+            idle = true;
+            if (!ring.hasPending() && running)
+                LockSupport.parkNanos(this, IDLE_PARK_NS);
+            idle = false;
+        }
+    }
+
+    private void closeSinks() {
+        flushSinks();
+        for (HyperLogSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "close: " + sink, e);
+            }
+        }
+    }
+
+    /**
+     * Pass entry straight to the sinks. Must be called on the dispatcher thread, e.g. from
+     * {@link Ticker#onTick}.
+     */
+    void dispatchDirect(HyperLogEntry entry) {
+        dispatch(entry);
+    }
+
+    private boolean tick() {
+        long now = System.currentTimeMillis();
+        if (now < nextTick)
+            return false;
+        nextTick = now + TICK_INTERVAL_MS;
+        Ticker[] current = tickers;
+        for (Ticker ticker : current) {
+            try {
+                ticker.onTick(this, now);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "tick: " + ticker, e);
+            }
+        }
+        return current.length > 0;
+    }
+
+    private void dispatch(HyperLogEntry entry) {
+        for (HyperLogSink sink : sinks) {
+            if (entry.isRemote() && !sink.isShared())
+                continue;
+            if (entry.isForced() ? !sink.isLoggableForced(entry.level)
+                    : !sink.isLoggable(entry.level))
+                continue;
+            try {
+                sink.write(entry);
+            } catch (RuntimeException e) {
+                // one broken sink must not stop the others
+                Log.w(TAG, "write: " + sink, e);
+            }
+        }
+    }
+
+    private void reportDropped() {
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            dispatch(new HyperLogEntry(System.currentTimeMillis(), HyperLog.WARN, TAG,
+                    "publish", lost + " entries dropped, ring buffer full"));
+        }
+    }
+
+    private void flushSinks() {
+        for (HyperLogSink sink : sinks) {
+            try {
+                sink.flush();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "flush: " + sink, e);
+            }
+        }
+        flushed = ring.getConsumed();
+        synchronized (flushLock) {
+            flushLock.notifyAll();
+        }
+    }
+
+    /**
+     * Periodic task run on the dispatcher thread
+     */
+    public interface Ticker {
+        void onTick(HyperLogDispatcher dispatcher, long now);
+    }
+}
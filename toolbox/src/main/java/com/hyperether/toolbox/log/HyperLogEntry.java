@@ -0,0 +1,94 @@
+package com.hyperether.toolbox.log;
+
+/**
+ * Single log entry. Instances held by {@link HyperLogRingBuffer} are reused, use
+ * {@link #copy()} to keep an entry.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogEntry {
+
+    // tag level was set explicitly, debug only sinks write the entry too
+    public static final int FLAG_FORCED = 1;
+    // forwarded from another process, written only by sinks shared by all processes
+    public static final int FLAG_REMOTE = 2;
+
+    public long timestamp;
+    public int level;
+    public String tag;
+    public String method;
+    public String message;
+    public Throwable throwable;
+    public String thread;
+    public int flags;
+    // HyperLogFingerprint of the exception, set on entries read by HyperLogFormat.Decoder
+    public long fingerprint;
+
+    public HyperLogEntry() {
+    }
+
+    public HyperLogEntry(long timestamp, int level, String tag, String method, String message) {
+        set(timestamp, level, tag, method, message, null, null);
+    }
+
+    public void set(long timestamp,
+                    int level,
+                    String tag,
+                    String method,
+                    String message,
+                    Throwable throwable,
+                    String thread) {
+        set(timestamp, level, tag, method, message, throwable, thread, 0);
+    }
+
+    public void set(long timestamp,
+                    int level,
+                    String tag,
+                    String method,
+                    String message,
+                    Throwable throwable,
+                    String thread,
+                    int flags) {
+        this.timestamp = timestamp;
+        this.level = level;
+        this.tag = tag;
+        this.method = method;
+        this.message = message;
+        this.throwable = throwable;
+        this.thread = thread;
+        this.flags = flags;
+    }
+
+    public void set(HyperLogEntry other) {
+        set(other.timestamp, other.level, other.tag, other.method, other.message,
+                other.throwable, other.thread, other.flags);
+    }
+
+    public boolean isForced() {
+        return (flags & FLAG_FORCED) != 0;
+    }
+
+    public boolean isRemote() {
+        return (flags & FLAG_REMOTE) != 0;
+    }
+
+    public HyperLogEntry copy() {
+        HyperLogEntry copy = new HyperLogEntry();
+        copy.set(this);
+        copy.fingerprint = fingerprint;
+        return copy;
+    }
+
+    /**
+     * Drop references so a reused slot does not keep strings alive
+     */
+    public void clear() {
+        tag = null;
+        method = null;
+        message = null;
+        throwable = null;
+        thread = null;
+        flags = 0;
+        fingerprint = 0;
+    }
+}
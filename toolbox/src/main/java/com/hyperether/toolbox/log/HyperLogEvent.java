@@ -0,0 +1,70 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+/**
+ * Immutable structured log event delivered to {@link HyperLog.OnLogBatchListener}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogEvent {
+
+    private final long timestamp;
+    private final int level;
+    private final String tag;
+    private final String method;
+    private final String message;
+    private final Throwable throwable;
+    private final String thread;
+
+    public HyperLogEvent(HyperLogEntry entry) {
+        this.timestamp = entry.timestamp;
+        this.level = entry.level;
+        this.tag = entry.tag;
+        this.method = entry.method;
+        this.message = entry.message;
+        this.throwable = entry.throwable;
+        this.thread = entry.thread;
+    }
+
+    /**
+     * @return time in milliseconds since epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return one of {@link HyperLog#ERROR}, {@link HyperLog#WARN}, {@link HyperLog#INFO},
+     * {@link HyperLog#DEBUG}, {@link HyperLog#VERBOSE}
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return logged exception or null
+     */
+    public Throwable getThrowable() {
+        return throwable;
+    }
+
+    /**
+     * @return name of the thread that logged the event
+     */
+    public String getThread() {
+        return thread;
+    }
+}
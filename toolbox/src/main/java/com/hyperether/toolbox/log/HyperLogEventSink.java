@@ -0,0 +1,49 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects {@link HyperLogEvent}s during one dispatcher batch and hands them to
+ * {@link HyperLog.OnLogBatchListener} as one list. Accepts ERROR, WARN and INFO by default and
+ * nothing while no listener is set.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogEventSink extends HyperLogSink {
+
+    private volatile HyperLog.OnLogBatchListener onLogBatchListener;
+    private List<HyperLogEvent> batch = new ArrayList<>();
+
+    public HyperLogEventSink() {
+        setLevel(HyperLog.INFO);
+    }
+
+    public void setOnLogBatchListener(HyperLog.OnLogBatchListener onLogBatchListener) {
+        this.onLogBatchListener = onLogBatchListener;
+    }
+
+    @Override
+    public boolean isLoggable(int level) {
+        return onLogBatchListener != null && super.isLoggable(level);
+    }
+
+    @Override
+    public void write(HyperLogEntry entry) {
+        batch.add(new HyperLogEvent(entry));
+    }
+
+    @Override
+    public void flush() {
+        if (batch.isEmpty())
+            return;
+        List<HyperLogEvent> events = batch;
+        // listener owns the delivered list
+        batch = new ArrayList<>();
+        HyperLog.OnLogBatchListener listener = onLogBatchListener;
+        if (listener != null)
+            listener.onLogs(events);
+    }
+}
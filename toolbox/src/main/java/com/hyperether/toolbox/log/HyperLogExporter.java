@@ -0,0 +1,266 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Converts binary log segments written by {@link HyperLogFileSink} to HTML or plain text.
+ * Entries logged with an exception are marked with its fingerprint and occurrence number, each
+ * distinct exception is listed once at the end with its count, first and last time and full
+ * stack trace.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogExporter {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Export binary log to HTML table, same layout as the old log.html
+     *
+     * @param sources binary log segments, oldest first. Gzip compressed segments are supported.
+     * @param target  output HTML file
+     * @throws IOException on read or write error
+     */
+    public static void exportHtml(List<File> sources, File target) throws IOException {
+        export(sources, target, true);
+    }
+
+    /**
+     * Export binary log to plain text, one entry per line
+     *
+     * @param sources binary log segments, oldest first. Gzip compressed segments are supported.
+     * @param target  output text file
+     * @throws IOException on read or write error
+     */
+    public static void exportText(List<File> sources, File target) throws IOException {
+        export(sources, target, false);
+    }
+
+    private static void export(List<File> sources, File target, boolean html)
+            throws IOException {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd-HH:mm:ss.SSS", Locale.getDefault());
+        Date date = new Date();
+        Map<Long, ExceptionStats> exceptions = new LinkedHashMap<>();
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(target), "UTF-8"), BUFFER_SIZE);
+        try {
+            if (html)
+                out.append(htmlTemplate());
+            for (File source : sources) {
+                HyperLogFormat.Decoder decoder = openDecoder(source);
+                if (decoder == null)
+                    continue;
+                try {
+                    HyperLogEntry entry;
+                    while ((entry = decoder.next()) != null) {
+                        date.setTime(entry.timestamp);
+                        String note = null;
+                        if (entry.fingerprint != 0) {
+                            ExceptionStats stats = exceptions.get(entry.fingerprint);
+                            if (stats == null) {
+                                stats = new ExceptionStats(entry.timestamp,
+                                        decoder.getTrace(entry.fingerprint));
+                                exceptions.put(entry.fingerprint, stats);
+                            }
+                            stats.add(entry.timestamp);
+                            note = " [exception " + HyperLogFingerprint.toHex(entry.fingerprint)
+                                    + " #" + stats.count + "]";
+                        }
+                        if (html)
+                            appendHtmlRow(out, sdf.format(date), entry, note);
+                        else
+                            appendTextLine(out, sdf.format(date), entry, note);
+                    }
+                } finally {
+                    decoder.close();
+                }
+            }
+            if (html) {
+                out.append("</table>\n");
+                appendHtmlExceptions(out, sdf, exceptions);
+                out.append("</body></html>\n");
+            } else {
+                appendTextExceptions(out, sdf, exceptions);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return decoder or null if segment is gone, empty or not a log file
+     */
+    private static HyperLogFormat.Decoder openDecoder(File source) {
+        if (!source.exists() && !HyperLogSegments.isCompressed(source)) {
+            // segment may be compressed after it was listed
+            source = new File(source.getPath() + ".gz");
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(source);
+            if (HyperLogSegments.isCompressed(source))
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            else
+                in = new BufferedInputStream(in, BUFFER_SIZE);
+            return new HyperLogFormat.Decoder(in);
+        } catch (IOException e) {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    private static void appendHtmlRow(Writer out, String date, HyperLogEntry entry, String note)
+            throws IOException {
+        out.append("<tr BGCOLOR=\"").append(levelColor(entry.level)).append("\">")
+                .append("<td>").append(date).append("</td>")
+                .append("<td>").append(levelName(entry.level)).append("</td>")
+                .append("<td>").append(entry.tag).append("</td>")
+                .append("<td>").append(entry.method).append("</td>")
+                .append("<td>").append(entry.message);
+        if (note != null)
+            out.append(note);
+        out.append("</td></tr>\n");
+    }
+
+    private static void appendTextLine(Writer out, String date, HyperLogEntry entry, String note)
+            throws IOException {
+        out.append(date).append(' ')
+                .append(levelName(entry.level)).append(' ')
+                .append(entry.tag).append('.').append(entry.method).append(": ")
+                .append(entry.message);
+        if (note != null)
+            out.append(note);
+        out.append('\n');
+    }
+
+    private static void appendHtmlExceptions(Writer out,
+                                             SimpleDateFormat sdf,
+                                             Map<Long, ExceptionStats> exceptions)
+            throws IOException {
+        if (exceptions.isEmpty())
+            return;
+        out.append("<h1>Exceptions</h1>");
+        out.append("<table border=\"1\" bordercolor=\"#000000\">");
+        out.append("<tr BGCOLOR=\"#d9d9d9\"><td><b>Fingerprint</b></td><td><b>Count</b></td>");
+        out.append("<td><b>First</b></td><td><b>Last</b></td><td><b>Stack trace</b></td></tr>\n");
+        for (Map.Entry<Long, ExceptionStats> item : exceptions.entrySet()) {
+            ExceptionStats stats = item.getValue();
+            out.append("<tr><td>").append(HyperLogFingerprint.toHex(item.getKey()))
+                    .append("</td><td>").append(String.valueOf(stats.count))
+                    .append("</td><td>").append(sdf.format(new Date(stats.first)))
+                    .append("</td><td>").append(sdf.format(new Date(stats.last)))
+                    .append("</td><td><pre>").append(escapeHtml(stats.trace))
+                    .append("</pre></td></tr>\n");
+        }
+        out.append("</table>\n");
+    }
+
+    private static void appendTextExceptions(Writer out,
+                                             SimpleDateFormat sdf,
+                                             Map<Long, ExceptionStats> exceptions)
+            throws IOException {
+        if (exceptions.isEmpty())
+            return;
+        out.append("\nExceptions\n");
+        for (Map.Entry<Long, ExceptionStats> item : exceptions.entrySet()) {
+            ExceptionStats stats = item.getValue();
+            out.append('\n').append(HyperLogFingerprint.toHex(item.getKey()))
+                    .append(" x").append(String.valueOf(stats.count))
+                    .append(" first ").append(sdf.format(new Date(stats.first)))
+                    .append(" last ").append(sdf.format(new Date(stats.last))).append('\n')
+                    .append(stats.trace != null ? stats.trace : "").append('\n');
+        }
+    }
+
+    private static String escapeHtml(String text) {
+        if (text == null)
+            return "";
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    static String levelName(int level) {
+        switch (level) {
+            case HyperLog.ERROR:
+                return "ERROR";
+            case HyperLog.WARN:
+                return "WARN";
+            case HyperLog.VERBOSE:
+                return "VERBOSE";
+            case HyperLog.INFO:
+                return "INFO";
+            case HyperLog.DEBUG:
+            default:
+                return "DEBUG";
+        }
+    }
+
+    private static String levelColor(int level) {
+        switch (level) {
+            case HyperLog.ERROR:
+                return "#ffb3b4";
+            case HyperLog.WARN:
+                return "#ffffb4";
+            case HyperLog.DEBUG:
+                return "#ffccfe";
+            case HyperLog.VERBOSE:
+                return "#b3ffb4";
+            case HyperLog.INFO:
+                return "#b3b3fe";
+            default:
+                return "#ffffff";
+        }
+    }
+
+    private static String htmlTemplate() {
+        StringBuilder htmlStringBuilder = new StringBuilder();
+        htmlStringBuilder.append("<html><head><title>Hyper logs</title></head>");
+        htmlStringBuilder.append("<body><h1>Logs</h1>");
+        htmlStringBuilder.append("<table border=\"1\" bordercolor=\"#000000\">");
+        htmlStringBuilder.append("<tr BGCOLOR=\"#d9d9d9\"><td><b>Date</b></td>");
+        htmlStringBuilder.append("<td><b>Level</b></td>");
+        htmlStringBuilder.append("<td><b>Tag</b></td>");
+        htmlStringBuilder.append("<td><b>Method</b></td>");
+        htmlStringBuilder.append("<td><b>Message</b></td></tr>\n");
+        return htmlStringBuilder.toString();
+    }
+
+    private static class ExceptionStats {
+
+        private final String trace;
+        private final long first;
+        private long last;
+        private int count;
+
+        private ExceptionStats(long first, String trace) {
+            this.first = first;
+            this.trace = trace;
+        }
+
+        private void add(long timestamp) {
+            last = timestamp;
+            count++;
+        }
+    }
+}
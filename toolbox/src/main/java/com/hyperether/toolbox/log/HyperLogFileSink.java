@@ -0,0 +1,119 @@
+package com.hyperether.toolbox.log;
+
+import android.util.Log;
+
+import com.hyperether.toolbox.HyperApp;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes entries to rolling log files in debug mode or for tags with explicitly set level. Files
+ * are written in {@link HyperLogFormat} and rotated by {@link HyperLogSegments}, use
+ * {@link HyperLogExporter} to read them.
+ * <p>
+ * One file handle is kept open. Entries are buffered and written out once per dispatcher batch.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogFileSink extends HyperLogSink {
+
+    private static final String TAG = HyperLogFileSink.class.getSimpleName();
+
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    private final HyperLogSegments segments = new HyperLogSegments();
+
+    private File logFile;
+    private long initialLength;
+    private long openedAt;
+    private boolean rotate;
+    private HyperLogFormat.Encoder encoder;
+
+    /**
+     * @return rolling segments of this sink
+     */
+    public HyperLogSegments getSegments() {
+        return segments;
+    }
+
+    @Override
+    public boolean isLoggable(int level) {
+        return HyperApp.getInstance().isDebugActive() && super.isLoggable(level);
+    }
+
+    @Override
+    public boolean isLoggableForced(int level) {
+        return super.isLoggable(level);
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public void write(HyperLogEntry entry) {
+        try {
+            if (encoder == null)
+                openFile();
+            if (encoder != null)
+                encoder.write(entry);
+        } catch (IOException e) {
+            onError(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (encoder == null)
+            return;
+        try {
+            encoder.flush();
+            if (!logFile.exists() || segments.shouldRotate(initialLength + encoder.size(),
+                    openedAt, System.currentTimeMillis())) {
+                close();
+                rotate = true;
+            }
+        } catch (IOException e) {
+            onError(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (encoder != null) {
+            try {
+                encoder.close();
+            } catch (IOException e) {
+                Log.w(TAG, "close", e);
+            }
+            encoder = null;
+        }
+    }
+
+    private void openFile() throws IOException {
+        logFile = segments.openActive(rotate);
+        rotate = false;
+        if (logFile == null)
+            return;
+        boolean newFile = !logFile.exists();
+        initialLength = newFile ? 0 : logFile.length();
+        openedAt = System.currentTimeMillis();
+        encoder = new HyperLogFormat.Encoder(new BufferedOutputStream(
+                new FileOutputStream(logFile, true), WRITE_BUFFER_SIZE));
+        if (newFile) {
+            encoder.writeHeader();
+            segments.compact();
+        }
+        encoder.startSession(openedAt);
+    }
+
+    private void onError(IOException e) {
+        close();
+        if (HyperApp.getInstance().isDebugActive())
+            e.printStackTrace();
+    }
+}
@@ -0,0 +1,91 @@
+package com.hyperether.toolbox.log;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Identifies recurring exceptions. Fingerprint is a 64 bit FNV-1a hash of exception classes and
+ * stack frames of the whole cause chain. Messages and line numbers are left out and generated
+ * class names are normalized, so the same failure gets the same fingerprint across occurrences
+ * and small code changes.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int MAX_CAUSES = 8;
+    private static final int MAX_FRAMES = 64;
+
+    /**
+     * @param throwable exception
+     * @return fingerprint, never 0 for non null exception
+     */
+    public static long of(Throwable throwable) {
+        if (throwable instanceof HyperLogRemoteThrowable)
+            return ((HyperLogRemoteThrowable) throwable).getFingerprint();
+        long hash = FNV_OFFSET;
+        Throwable current = throwable;
+        for (int depth = 0; current != null && depth < MAX_CAUSES; depth++) {
+            hash = hash(hash, current.getClass().getName());
+            StackTraceElement[] frames = current.getStackTrace();
+            int count = Math.min(frames.length, MAX_FRAMES);
+            for (int i = 0; i < count; i++) {
+                hash = hash(hash, normalizeClass(frames[i].getClassName()));
+                hash = hash(hash, frames[i].getMethodName());
+            }
+            Throwable cause = current.getCause();
+            current = cause != current ? cause : null;
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * @param throwable exception
+     * @return full stack trace with causes, as printed by {@link Throwable#printStackTrace()}
+     */
+    public static String trace(Throwable throwable) {
+        StringWriter writer = new StringWriter();
+        PrintWriter out = new PrintWriter(writer);
+        throwable.printStackTrace(out);
+        out.flush();
+        return writer.toString();
+    }
+
+    /**
+     * @return fingerprint as 16 hex digits
+     */
+    public static String toHex(long fingerprint) {
+        String hex = Long.toHexString(fingerprint);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Drop the parts of generated class names that change between runs or builds, e.g.
+     * Foo$$Lambda$12/0x0123 and Foo$$ExternalSyntheticLambda3 both become Foo
+     */
+    static String normalizeClass(String className) {
+        int synthetic = className.indexOf("$$");
+        if (synthetic > 0)
+            return className.substring(0, synthetic);
+        int proxy = className.indexOf("$Proxy");
+        if (proxy >= 0)
+            return className.substring(0, proxy + 6);
+        return className;
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        // separator, so "ab"+"c" and "a"+"bc" differ
+        hash ^= 0xff;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
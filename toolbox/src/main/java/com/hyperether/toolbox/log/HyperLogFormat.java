@@ -0,0 +1,312 @@
+package com.hyperether.toolbox.log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format of the log file.
+ * <p>
+ * File starts with {@link #MAGIC} and {@link #VERSION}, followed by records. Every record starts
+ * with a type byte:
+ * <ul>
+ * <li>session - long start time. Clears the string table, written each time the file is
+ * opened for append</li>
+ * <li>string - varint id, length prefixed UTF-8 text. Defines tag or method name used by
+ * following entries</li>
+ * <li>entry - long timestamp, level byte, varint tag id, varint method id, length prefixed
+ * UTF-8 message</li>
+ * <li>trace (version 2) - varint id, long {@link HyperLogFingerprint}, length prefixed UTF-8
+ * stack trace. Written once per session for each distinct exception</li>
+ * <li>thrown (version 2) - entry fields followed by varint trace id</li>
+ * <li>repeat (version 2) - long timestamp, varint trace id. Same exception logged again with
+ * the same level, tag, method and message as its first thrown record</li>
+ * </ul>
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogFormat {
+
+    public static final int MAGIC = 0x484C4F47; // "HLOG"
+    public static final int VERSION = 2;
+    private static final int MIN_VERSION = 1;
+
+    private static final int RECORD_SESSION = 1;
+    private static final int RECORD_STRING = 2;
+    private static final int RECORD_ENTRY = 3;
+    private static final int RECORD_TRACE = 4;
+    private static final int RECORD_THROWN = 5;
+    private static final int RECORD_REPEAT = 6;
+
+    private static final String CHARSET = "UTF-8";
+
+    /**
+     * Writes entries in binary format. Not thread safe, used from the writer thread only.
+     */
+    public static class Encoder {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final Map<Long, Integer> traceIds = new HashMap<>();
+        // first thrown entry of each trace id, repeats matching it are written as repeat records
+        private final List<HyperLogEntry> firstThrown = new ArrayList<>();
+
+        public Encoder(OutputStream out) {
+            this.out = new DataOutputStream(out);
+        }
+
+        public void writeHeader() throws IOException {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        public void startSession(long timestamp) throws IOException {
+            stringIds.clear();
+            traceIds.clear();
+            firstThrown.clear();
+            out.writeByte(RECORD_SESSION);
+            out.writeLong(timestamp);
+        }
+
+        public void write(HyperLogEntry entry) throws IOException {
+            if (entry.throwable != null) {
+                writeThrown(entry);
+                return;
+            }
+            int tagId = intern(entry.tag);
+            int methodId = intern(entry.method);
+            out.writeByte(RECORD_ENTRY);
+            writeEntryFields(entry, tagId, methodId);
+        }
+
+        private void writeThrown(HyperLogEntry entry) throws IOException {
+            long fingerprint = HyperLogFingerprint.of(entry.throwable);
+            Integer traceId = traceIds.get(fingerprint);
+            if (traceId != null && isRepeat(firstThrown.get(traceId), entry)) {
+                out.writeByte(RECORD_REPEAT);
+                out.writeLong(entry.timestamp);
+                writeVarInt(out, traceId);
+                return;
+            }
+            if (traceId == null) {
+                traceId = traceIds.size();
+                traceIds.put(fingerprint, traceId);
+                HyperLogEntry first = entry.copy();
+                // keep only what repeat matching needs
+                first.throwable = null;
+                first.thread = null;
+                firstThrown.add(first);
+                out.writeByte(RECORD_TRACE);
+                writeVarInt(out, traceId);
+                out.writeLong(fingerprint);
+                writeString(out, HyperLogFingerprint.trace(entry.throwable));
+            }
+            int tagId = intern(entry.tag);
+            int methodId = intern(entry.method);
+            out.writeByte(RECORD_THROWN);
+            writeEntryFields(entry, tagId, methodId);
+            writeVarInt(out, traceId);
+        }
+
+        private void writeEntryFields(HyperLogEntry entry, int tagId, int methodId)
+                throws IOException {
+            out.writeLong(entry.timestamp);
+            out.writeByte(entry.level);
+            writeVarInt(out, tagId);
+            writeVarInt(out, methodId);
+            writeString(out, entry.message);
+        }
+
+        /**
+         * @return number of bytes written through this encoder
+         */
+        public int size() {
+            return out.size();
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private int intern(String value) throws IOException {
+            if (value == null)
+                value = "";
+            Integer id = stringIds.get(value);
+            if (id == null) {
+                id = stringIds.size();
+                stringIds.put(value, id);
+                out.writeByte(RECORD_STRING);
+                writeVarInt(out, id);
+                writeString(out, value);
+            }
+            return id;
+        }
+    }
+
+    private static boolean isRepeat(HyperLogEntry first, HyperLogEntry entry) {
+        return first.level == entry.level
+                && equal(first.tag, entry.tag)
+                && equal(first.method, entry.method)
+                && equal(first.message, entry.message);
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Reads entries written by {@link Encoder}. Entries logged with an exception have
+     * {@link HyperLogEntry#fingerprint} set, its stack trace is returned by
+     * {@link #getTrace(long)}. Repeat records are returned as full entries.
+     */
+    public static class Decoder {
+
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private final List<HyperLogEntry> traces = new ArrayList<>();
+        private final Map<Long, String> traceTexts = new HashMap<>();
+
+        public Decoder(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            if (this.in.readInt() != MAGIC)
+                throw new IOException("Not a HyperLog file");
+            int version = this.in.readUnsignedByte();
+            if (version < MIN_VERSION || version > VERSION)
+                throw new IOException("Unsupported HyperLog file version: " + version);
+        }
+
+        /**
+         * Read next entry
+         *
+         * @return entry or null at the end of file. Incomplete last record is ignored.
+         * @throws IOException on read error or corrupted file
+         */
+        public HyperLogEntry next() throws IOException {
+            try {
+                while (true) {
+                    int type = in.read();
+                    switch (type) {
+                        case -1:
+                            return null;
+                        case RECORD_SESSION:
+                            in.readLong();
+                            strings.clear();
+                            traces.clear();
+                            break;
+                        case RECORD_STRING:
+                            int id = readVarInt(in);
+                            if (id != strings.size())
+                                throw new IOException("Unexpected string id: " + id);
+                            strings.add(readString(in));
+                            break;
+                        case RECORD_ENTRY:
+                            return readEntry();
+                        case RECORD_TRACE:
+                            int traceId = readVarInt(in);
+                            if (traceId != traces.size())
+                                throw new IOException("Unexpected trace id: " + traceId);
+                            HyperLogEntry trace = new HyperLogEntry();
+                            trace.fingerprint = in.readLong();
+                            traceTexts.put(trace.fingerprint, readString(in));
+                            traces.add(trace);
+                            break;
+                        case RECORD_THROWN:
+                            HyperLogEntry thrown = readEntry();
+                            HyperLogEntry first = lookupTrace(readVarInt(in));
+                            if (first.message == null)
+                                first.set(thrown);
+                            thrown.fingerprint = first.fingerprint;
+                            return thrown;
+                        case RECORD_REPEAT:
+                            long timestamp = in.readLong();
+                            HyperLogEntry repeat = lookupTrace(readVarInt(in)).copy();
+                            repeat.timestamp = timestamp;
+                            return repeat;
+                        default:
+                            throw new IOException("Unknown record type: " + type);
+                    }
+                }
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @param fingerprint {@link HyperLogEntry#fingerprint} of a decoded entry
+         * @return stack trace or null if not read yet
+         */
+        public String getTrace(long fingerprint) {
+            return traceTexts.get(fingerprint);
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private HyperLogEntry readEntry() throws IOException {
+            long timestamp = in.readLong();
+            int level = in.readUnsignedByte();
+            String tag = lookup(readVarInt(in));
+            String method = lookup(readVarInt(in));
+            String message = readString(in);
+            return new HyperLogEntry(timestamp, level, tag, method, message);
+        }
+
+        private HyperLogEntry lookupTrace(int id) throws IOException {
+            if (id < 0 || id >= traces.size())
+                throw new IOException("Unknown trace id: " + id);
+            return traces.get(id);
+        }
+
+        private String lookup(int id) throws IOException {
+            if (id < 0 || id >= strings.size())
+                throw new IOException("Unknown string id: " + id);
+            return strings.get(id);
+        }
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(CHARSET);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0)
+            throw new IOException("Malformed string length: " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, CHARSET);
+    }
+}
@@ -0,0 +1,78 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per tag log levels with a default level, updatable at runtime.
+ * <p>
+ * Tags without their own level use the default level and are then filtered by the sinks as
+ * usual. A tag with its own level is also written by sinks that are otherwise enabled only in
+ * debug mode, so e.g. VERBOSE can be turned on for one class in a release build.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogLevels {
+
+    private static final String NULL_TAG = "null";
+
+    private final ConcurrentHashMap<String, HyperLogTag> tags = new ConcurrentHashMap<>();
+    private volatile int defaultLevel = HyperLog.VERBOSE;
+
+    /**
+     * Resolve tag handle, created on first use
+     *
+     * @param tag tag name
+     * @return interned handle
+     */
+    public HyperLogTag get(String tag) {
+        String name = tag != null ? tag : NULL_TAG;
+        HyperLogTag handle = tags.get(name);
+        if (handle == null) {
+            HyperLogTag created = new HyperLogTag(name, this);
+            handle = tags.putIfAbsent(name, created);
+            if (handle == null)
+                handle = created;
+        }
+        return handle;
+    }
+
+    /**
+     * Set level of one tag
+     *
+     * @param tag   tag name
+     * @param level lowest severity logged for the tag
+     */
+    public void setLevel(String tag, int level) {
+        get(tag).setLevel(level);
+    }
+
+    /**
+     * Remove level of one tag, tag uses default level again
+     */
+    public void clearLevel(String tag) {
+        get(tag).setLevel(HyperLogTag.UNSET);
+    }
+
+    /**
+     * Remove levels of all tags
+     */
+    public void clearLevels() {
+        for (HyperLogTag handle : tags.values())
+            handle.setLevel(HyperLogTag.UNSET);
+    }
+
+    /**
+     * If not set default is {@link HyperLog#VERBOSE}, leaving filtering to the sinks
+     *
+     * @param level lowest severity logged for tags without their own level
+     */
+    public void setDefaultLevel(int level) {
+        this.defaultLevel = level;
+    }
+
+    public int getDefaultLevel() {
+        return defaultLevel;
+    }
+}
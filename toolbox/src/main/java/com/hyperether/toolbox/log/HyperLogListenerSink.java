@@ -0,0 +1,56 @@
+package com.hyperether.toolbox.log;
+
+import android.os.Build;
+
+import com.hyperether.toolbox.HyperLog;
+
+/**
+ * Forwards ERROR, WARN and INFO entries to {@link HyperLog.OnLogListener}. Listener is called on
+ * the dispatcher thread.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogListenerSink extends HyperLogSink {
+
+    private volatile HyperLog.OnLogListener onLogListener;
+
+    public HyperLogListenerSink() {
+        setLevel(HyperLog.INFO);
+    }
+
+    public void setOnLogListener(HyperLog.OnLogListener onLogListener) {
+        this.onLogListener = onLogListener;
+    }
+
+    @Override
+    public boolean isLoggable(int level) {
+        return onLogListener != null && super.isLoggable(level);
+    }
+
+    @Override
+    public void write(HyperLogEntry entry) {
+        HyperLog.OnLogListener listener = onLogListener;
+        if (listener == null)
+            return;
+        String msgType = " ";
+        switch (entry.level) {
+            case HyperLog.ERROR:
+                msgType = " ERROR ";
+                break;
+            case HyperLog.WARN:
+                msgType = " WARN ";
+                break;
+            case HyperLog.DEBUG:
+                msgType = " DEBUG ";
+                break;
+            case HyperLog.VERBOSE:
+                msgType = " VERBOSE ";
+                break;
+            case HyperLog.INFO:
+                msgType = " INFO ";
+                break;
+        }
+        listener.onLog("DEVICE: " + Build.MODEL + msgType + "MESSAGE: " + "Class: " + entry.tag
+                + " Method: " + entry.method + " msg: " + entry.message);
+    }
+}
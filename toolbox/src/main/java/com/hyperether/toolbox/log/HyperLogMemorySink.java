@@ -0,0 +1,48 @@
+package com.hyperether.toolbox.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps copies of the last N entries in memory, e.g. for an in-app log viewer
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogMemorySink extends HyperLogSink {
+
+    private final HyperLogEntry[] entries;
+    private int next;
+    private int count;
+
+    public HyperLogMemorySink(int capacity) {
+        entries = new HyperLogEntry[capacity];
+    }
+
+    @Override
+    public synchronized void write(HyperLogEntry entry) {
+        HyperLogEntry slot = entries[next];
+        if (slot == null)
+            entries[next] = entry.copy();
+        else
+            slot.set(entry);
+        next = (next + 1) % entries.length;
+        if (count < entries.length)
+            count++;
+    }
+
+    /**
+     * @return copy of kept entries, oldest first
+     */
+    public synchronized List<HyperLogEntry> getEntries() {
+        List<HyperLogEntry> result = new ArrayList<>(count);
+        int start = (next - count + entries.length) % entries.length;
+        for (int i = 0; i < count; i++)
+            result.add(entries[(start + i) % entries.length].copy());
+        return result;
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        next = 0;
+    }
+}
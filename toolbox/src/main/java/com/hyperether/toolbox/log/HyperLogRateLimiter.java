@@ -0,0 +1,217 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per tag and method token bucket rate limit with optional per level sampling. Entries over the
+ * limit are counted and reported periodically as one "N messages suppressed" entry per
+ * tag and method. Nothing is limited or sampled until {@link #setRateLimit(double, int)} or
+ * {@link #setSampleRate(int, float)} is called.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogRateLimiter implements HyperLogDispatcher.Ticker {
+
+    // suggested limit, high enough to trip only on log storms, not on startup bursts
+    public static final double SUGGESTED_PERMITS_PER_SECOND = 100;
+    public static final int SUGGESTED_BURST = 1000;
+
+    private static final long IDLE_BUCKET_NS = 60_000_000_000L;
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Bucket>> buckets =
+            new ConcurrentHashMap<>();
+    // indexed by HyperLog.priority(level)
+    private final float[] sampleRates = {1f, 1f, 1f, 1f, 1f};
+
+    // disabled until set
+    private volatile double permitsPerNano = 0;
+    private volatile int burst = SUGGESTED_BURST;
+    private volatile long seed = System.nanoTime() | 1;
+
+    /**
+     * @param permitsPerSecond sustained entries per second for one tag and method, zero or
+     *                         less disables rate limiting
+     * @param burst            entries allowed at once before the limit applies
+     */
+    public void setRateLimit(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.burst = Math.max(1, burst);
+    }
+
+    /**
+     * @param level      log level
+     * @param sampleRate fraction of entries of this level that are kept, from 0 to 1
+     */
+    public void setSampleRate(int level, float sampleRate) {
+        sampleRates[HyperLog.priority(level)] = Math.max(0f, Math.min(1f, sampleRate));
+    }
+
+    /**
+     * Check if entry may be logged. Called on the logging thread.
+     *
+     * @return false if entry is sampled out or over the rate limit
+     */
+    public boolean allow(int level, String tag, String method) {
+        return allow(level, tag, method, false);
+    }
+
+    /**
+     * Check if entry may be logged. Called on the logging thread.
+     *
+     * @param forced true if tag level is set explicitly, summary of suppressed entries is then
+     *               written by the same sinks as the entries would be
+     * @return false if entry is sampled out or over the rate limit
+     */
+    public boolean allow(int level, String tag, String method, boolean forced) {
+        float sampleRate = sampleRates[HyperLog.priority(level)];
+        double rate = permitsPerNano;
+        if (rate <= 0 && sampleRate >= 1f)
+            return true;
+
+        Bucket bucket = bucket(tag, method);
+        if (sampleRate < 1f && nextFloat() >= sampleRate) {
+            bucket.sampledOut(level, forced);
+            return false;
+        }
+        return rate <= 0 || bucket.tryAcquire(System.nanoTime(), rate, burst, level, forced);
+    }
+
+    /**
+     * Report suppressed counts and forget idle buckets. Called on the dispatcher thread.
+     */
+    @Override
+    public void onTick(HyperLogDispatcher dispatcher, long now) {
+        long nanoNow = System.nanoTime();
+        for (ConcurrentHashMap<String, Bucket> methods : buckets.values()) {
+            Iterator<Bucket> it = methods.values().iterator();
+            while (it.hasNext()) {
+                Bucket bucket = it.next();
+                Summary summary = bucket.takeSummary();
+                if (summary != null) {
+                    String msg;
+                    if (summary.sampled == 0)
+                        msg = summary.suppressed + " messages suppressed";
+                    else if (summary.suppressed == 0)
+                        msg = summary.sampled + " messages sampled out";
+                    else
+                        msg = summary.suppressed + " messages suppressed, " + summary.sampled
+                                + " sampled out";
+                    HyperLogEntry entry = new HyperLogEntry(now, summary.level, bucket.tag,
+                            bucket.method, msg);
+                    if (summary.forced)
+                        entry.flags = HyperLogEntry.FLAG_FORCED;
+                    dispatcher.dispatchDirect(entry);
+                } else if (nanoNow - bucket.lastUsed() > IDLE_BUCKET_NS) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private Bucket bucket(String tag, String method) {
+        String tagKey = tag != null ? tag : "";
+        String methodKey = method != null ? method : "";
+        ConcurrentHashMap<String, Bucket> methods = buckets.get(tagKey);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Bucket> existing = buckets.putIfAbsent(tagKey, methods);
+            if (existing != null)
+                methods = existing;
+        }
+        Bucket bucket = methods.get(methodKey);
+        if (bucket == null) {
+            bucket = new Bucket(tagKey, methodKey, burst);
+            Bucket existing = methods.putIfAbsent(methodKey, bucket);
+            if (existing != null)
+                bucket = existing;
+        }
+        return bucket;
+    }
+
+    private float nextFloat() {
+        // xorshift, races between threads only make it more random
+        long x = seed;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        seed = x;
+        return (x >>> 40) / (float) (1 << 24);
+    }
+
+    private static class Summary {
+        int level;
+        int suppressed;
+        int sampled;
+        boolean forced;
+    }
+
+    private static class Bucket {
+
+        final String tag;
+        final String method;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long usedAt = refilledAt;
+        private int suppressed;
+        private int sampled;
+        private int worstLevel = HyperLog.VERBOSE;
+        private boolean forced;
+
+        Bucket(String tag, String method, int burst) {
+            this.tag = tag;
+            this.method = method;
+            this.tokens = burst;
+        }
+
+        synchronized boolean tryAcquire(long now,
+                                        double permitsPerNano,
+                                        int burst,
+                                        int level,
+                                        boolean forced) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+            usedAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            suppressed++;
+            track(level, forced);
+            return false;
+        }
+
+        synchronized void sampledOut(int level, boolean forced) {
+            sampled++;
+            usedAt = System.nanoTime();
+            track(level, forced);
+        }
+
+        synchronized long lastUsed() {
+            return usedAt;
+        }
+
+        synchronized Summary takeSummary() {
+            if (suppressed == 0 && sampled == 0)
+                return null;
+            Summary summary = new Summary();
+            summary.level = worstLevel;
+            summary.suppressed = suppressed;
+            summary.sampled = sampled;
+            summary.forced = forced;
+            suppressed = 0;
+            sampled = 0;
+            worstLevel = HyperLog.VERBOSE;
+            forced = false;
+            return summary;
+        }
+
+        private void track(int level, boolean forced) {
+            if (HyperLog.priority(level) < HyperLog.priority(worstLevel))
+                worstLevel = level;
+            this.forced |= forced;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.hyperether.toolbox.log;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Bundle;
+import android.os.DeadObjectException;
+import android.os.IBinder;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.os.TransactionTooLargeException;
+import android.util.Log;
+
+import com.hyperether.toolbox.HyperApp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwards entries of a secondary process to {@link HyperLogService} in the main process,
+ * which writes them to the shared log file. Replaces {@link HyperLogFileSink} outside the main
+ * process, so accepts the same entries. Entries are sent once per dispatcher batch and kept
+ * while the service is not connected.
+ * <p>
+ * Messages are split by estimated parcel size, far below the binder buffer that all one way
+ * transactions of the process share. A message still rejected as too large is sent again in
+ * halves, and a single entry is truncated until it fits.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogRemoteSink extends HyperLogSink {
+
+    private static final String TAG = HyperLogRemoteSink.class.getSimpleName();
+
+    private static final int MAX_PENDING = 4096;
+    // binder buffer is 1MB shared by all one way transactions of the process
+    static final int MAX_MESSAGE_BYTES = 64 * 1024;
+    // smallest size a single entry is truncated to when its transaction is rejected
+    static final int MIN_ENTRY_BYTES = 1024;
+    // timestamp, level, flags, fingerprint and array slots of one entry
+    private static final int ENTRY_FIXED_BYTES = 32;
+    private static final String TRUNCATED = "...[truncated]";
+
+    private final List<Pending> pending = new ArrayList<>();
+    private volatile Messenger messenger;
+    private boolean bound;
+    private long dropped;
+
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            messenger = new Messenger(service);
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // binding stays, system reconnects when the main process is started again
+            messenger = null;
+        }
+    };
+
+    /**
+     * Bind to {@link HyperLogService}. Entries are kept until the service is connected.
+     */
+    public synchronized void connect() {
+        if (bound)
+            return;
+        Context context = HyperApp.getInstance().getApplicationContext();
+        if (context == null)
+            return;
+        bound = context.bindService(new Intent(context, HyperLogService.class), connection,
+                Context.BIND_AUTO_CREATE);
+        if (!bound)
+            Log.w(TAG, "connect: HyperLogService not available");
+    }
+
+    /**
+     * Unbind from {@link HyperLogService}
+     */
+    public synchronized void disconnect() {
+        if (!bound)
+            return;
+        Context context = HyperApp.getInstance().getApplicationContext();
+        if (context != null)
+            context.unbindService(connection);
+        bound = false;
+        messenger = null;
+    }
+
+    @Override
+    public boolean isLoggable(int level) {
+        return HyperApp.getInstance().isDebugActive() && super.isLoggable(level);
+    }
+
+    @Override
+    public boolean isLoggableForced(int level) {
+        return super.isLoggable(level);
+    }
+
+    @Override
+    public void write(HyperLogEntry entry) {
+        if (pending.size() >= MAX_PENDING) {
+            dropped++;
+            return;
+        }
+        Pending item = new Pending(entry);
+        item.shrink(MAX_MESSAGE_BYTES);
+        pending.add(item);
+    }
+
+    @Override
+    public void flush() {
+        Messenger target = messenger;
+        if (target == null || pending.isEmpty())
+            return;
+        int sent = 0;
+        int maxBytes = MAX_MESSAGE_BYTES;
+        while (sent < pending.size()) {
+            int end = getBatchEnd(pending, sent, maxBytes);
+            Message msg = Message.obtain(null, HyperLogService.MSG_ENTRIES);
+            msg.setData(toBundle(sent, end));
+            try {
+                target.send(msg);
+            } catch (TransactionTooLargeException e) {
+                // binder buffer is full or the message is too big, binding is still alive
+                if (end - sent > 1) {
+                    maxBytes = Math.max(MIN_ENTRY_BYTES, getBytes(pending, sent, end) / 2);
+                    continue;
+                }
+                Pending item = pending.get(sent);
+                int bytes = item.bytes;
+                item.shrink(Math.max(MIN_ENTRY_BYTES, bytes / 2));
+                if (item.bytes < bytes)
+                    continue;
+                Log.w(TAG, "flush: transaction too large, retry on next flush");
+                break;
+            } catch (DeadObjectException e) {
+                // main process died, keep the rest until it is connected again
+                messenger = null;
+                break;
+            } catch (RemoteException e) {
+                Log.w(TAG, "flush: retry on next flush", e);
+                break;
+            }
+            sent = end;
+        }
+        pending.subList(0, sent).clear();
+        if (sent > 0 && dropped > 0) {
+            Log.w(TAG, "flush: " + dropped + " entries dropped while not connected");
+            dropped = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private Bundle toBundle(int start, int end) {
+        int count = end - start;
+        long[] timestamps = new long[count];
+        int[] levels = new int[count];
+        String[] tags = new String[count];
+        String[] methods = new String[count];
+        String[] messages = new String[count];
+        String[] threads = new String[count];
+        int[] flags = new int[count];
+        long[] fingerprints = new long[count];
+        String[] traces = new String[count];
+        for (int i = 0; i < count; i++) {
+            Pending item = pending.get(start + i);
+            HyperLogEntry entry = item.entry;
+            timestamps[i] = entry.timestamp;
+            levels[i] = entry.level;
+            tags[i] = entry.tag;
+            methods[i] = entry.method;
+            messages[i] = entry.message;
+            threads[i] = entry.thread;
+            flags[i] = entry.flags;
+            fingerprints[i] = entry.fingerprint;
+            traces[i] = item.trace;
+        }
+        Bundle data = new Bundle();
+        data.putString(HyperLogService.KEY_PROCESS, HyperApp.getInstance().getProcessName());
+        data.putLongArray(HyperLogService.KEY_TIMESTAMPS, timestamps);
+        data.putIntArray(HyperLogService.KEY_LEVELS, levels);
+        data.putStringArray(HyperLogService.KEY_TAGS, tags);
+        data.putStringArray(HyperLogService.KEY_METHODS, methods);
+        data.putStringArray(HyperLogService.KEY_MESSAGES, messages);
+        data.putStringArray(HyperLogService.KEY_THREADS, threads);
+        data.putIntArray(HyperLogService.KEY_FLAGS, flags);
+        data.putLongArray(HyperLogService.KEY_FINGERPRINTS, fingerprints);
+        data.putStringArray(HyperLogService.KEY_TRACES, traces);
+        return data;
+    }
+
+    /**
+     * @return end index of the batch starting at start, at least one entry
+     */
+    static int getBatchEnd(List<Pending> items, int start, int maxBytes) {
+        int end = start;
+        int bytes = 0;
+        while (end < items.size()) {
+            bytes += items.get(end).bytes;
+            if (end > start && bytes > maxBytes)
+                break;
+            end++;
+        }
+        return end;
+    }
+
+    static int getBytes(List<Pending> items, int start, int end) {
+        int bytes = 0;
+        for (int i = start; i < end; i++)
+            bytes += items.get(i).bytes;
+        return bytes;
+    }
+
+    /**
+     * @return bytes of the string in a parcel, length, UTF-16 chars and terminator padded to 4
+     */
+    static int parcelSize(String value) {
+        if (value == null)
+            return 4;
+        return 4 + (((value.length() + 1) * 2 + 3) & ~3);
+    }
+
+    static String truncate(String value, int maxChars) {
+        if (value == null || value.length() <= maxChars)
+            return value;
+        return value.substring(0, Math.max(0, maxChars - TRUNCATED.length())) + TRUNCATED;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Entry waiting to be sent, with its stack trace text and estimated parcel size
+     */
+    static class Pending {
+
+        final HyperLogEntry entry;
+        String trace;
+        int bytes;
+
+        Pending(HyperLogEntry source) {
+            entry = source.copy();
+            if (entry.throwable != null) {
+                entry.fingerprint = HyperLogFingerprint.of(entry.throwable);
+                trace = HyperLogFingerprint.trace(entry.throwable);
+                // trace text is all the service needs
+                entry.throwable = null;
+            }
+            bytes = estimate();
+        }
+
+        /**
+         * Truncate message and trace so the entry takes at most max bytes. Message keeps at
+         * least half of the room.
+         */
+        void shrink(int maxBytes) {
+            if (bytes <= maxBytes)
+                return;
+            int fixed = bytes - parcelSize(entry.message) - parcelSize(trace);
+            int chars = Math.max(TRUNCATED.length() * 2, (maxBytes - fixed) / 2 - 8);
+            int messageChars = Math.min(length(entry.message),
+                    Math.max(chars / 2, chars - length(trace)));
+            entry.message = truncate(entry.message, messageChars);
+            trace = truncate(trace, chars - messageChars);
+            bytes = estimate();
+        }
+
+        private int estimate() {
+            return ENTRY_FIXED_BYTES + parcelSize(entry.tag) + parcelSize(entry.method)
+                    + parcelSize(entry.message) + parcelSize(entry.thread) + parcelSize(trace);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.hyperether.toolbox.log;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+/**
+ * Exception logged in another process, rebuilt from its fingerprint and stack trace text. Keeps
+ * the original fingerprint so repeats are still recognized by {@link HyperLogFormat}.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogRemoteThrowable extends Throwable {
+
+    private final long fingerprint;
+    private final String trace;
+
+    public HyperLogRemoteThrowable(long fingerprint, String trace) {
+        super(firstLine(trace));
+        this.fingerprint = fingerprint;
+        this.trace = trace;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getTrace() {
+        return trace;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        // stack of this process is meaningless here
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+
+    @Override
+    public void printStackTrace(PrintStream s) {
+        s.print(trace);
+    }
+
+    @Override
+    public void printStackTrace(PrintWriter s) {
+        s.print(trace);
+    }
+
+    private static String firstLine(String trace) {
+        if (trace == null)
+            return "";
+        int end = trace.indexOf('\n');
+        return end >= 0 ? trace.substring(0, end) : trace;
+    }
+}
@@ -0,0 +1,118 @@
+package com.hyperether.toolbox.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated multi producer, single consumer ring of {@link HyperLogEntry} slots.
+ * <p>
+ * Producers claim a sequence with CAS, fill the slot in place and publish it by storing the
+ * sequence in the slot's published marker. Consumer reads slots in sequence order and releases
+ * each one after it is handled. When the ring is full the entry is rejected instead of waiting,
+ * so producers never block.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogRingBuffer {
+
+    private final HyperLogEntry[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+
+    private final AtomicLong claimed = new AtomicLong();
+    // next sequence to be consumed, written by the consumer only
+    private volatile long consumed;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public HyperLogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots = new HyperLogEntry[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new HyperLogEntry();
+            published.set(i, -1);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Copy entry fields into the next free slot
+     *
+     * @return false if the ring is full
+     */
+    public boolean publish(long timestamp,
+                           int level,
+                           String tag,
+                           String method,
+                           String message,
+                           Throwable throwable,
+                           String thread,
+                           int flags) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= slots.length)
+                return false;
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        int index = (int) seq & mask;
+        slots[index].set(timestamp, level, tag, method, message, throwable, thread, flags);
+        published.set(index, seq);
+        return true;
+    }
+
+    /**
+     * @return true if there is a published entry waiting for the consumer
+     */
+    public boolean hasPending() {
+        long seq = consumed;
+        return published.get((int) seq & mask) == seq;
+    }
+
+    /**
+     * Pass published entries to the handler, in order. Called from the consumer thread only.
+     *
+     * @param handler  entry handler
+     * @param maxCount max number of entries to handle
+     * @return number of handled entries
+     */
+    public int drain(Handler handler, int maxCount) {
+        long seq = consumed;
+        int count = 0;
+        while (count < maxCount) {
+            int index = (int) seq & mask;
+            if (published.get(index) != seq)
+                break;
+            HyperLogEntry entry = slots[index];
+            try {
+                handler.onEntry(entry);
+            } finally {
+                entry.clear();
+                seq++;
+                consumed = seq;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of sequences claimed so far, used as flush target
+     */
+    public long getClaimed() {
+        return claimed.get();
+    }
+
+    /**
+     * @return number of entries consumed so far
+     */
+    public long getConsumed() {
+        return consumed;
+    }
+
+    public interface Handler {
+        void onEntry(HyperLogEntry entry);
+    }
+}
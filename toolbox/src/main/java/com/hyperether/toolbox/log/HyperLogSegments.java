@@ -0,0 +1,256 @@
+package com.hyperether.toolbox.log;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.Log;
+
+import com.hyperether.toolbox.HyperApp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rolling log segments. Active segment is log-NNNNNN.bin, closed segments are gzip compressed to
+ * log-NNNNNN.bin.gz on a background thread. Oldest segments are deleted when segment count or
+ * total size goes over the limit.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogSegments {
+
+    private static final String TAG = HyperLogSegments.class.getSimpleName();
+
+    public static final String DIR_NAME = "hyperlog";
+
+    private static final String PREFIX = "log-";
+    private static final String SUFFIX = ".bin";
+    private static final String GZ_SUFFIX = ".gz";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    public static final long DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+    public static final long DEFAULT_SEGMENT_AGE_MS = 60 * 60 * 1000;
+    public static final int DEFAULT_SEGMENT_COUNT = 20;
+    public static final long DEFAULT_DISK_QUOTA = 10485760;
+
+    private volatile long segmentSize = DEFAULT_SEGMENT_SIZE;
+    private volatile long segmentAgeMs = DEFAULT_SEGMENT_AGE_MS;
+    private volatile int segmentCount = DEFAULT_SEGMENT_COUNT;
+    private volatile long diskQuota = DEFAULT_DISK_QUOTA;
+
+    private volatile long activeSequence = Long.MAX_VALUE;
+    private ExecutorService compressor;
+
+    /**
+     * Set rotation limits
+     *
+     * @param segmentSize  max size of active segment in bytes
+     * @param segmentAgeMs max time one segment stays active
+     * @param segmentCount max number of segments kept, including active one
+     * @param diskQuota    max total size of all segments in bytes
+     */
+    public void setLimits(long segmentSize, long segmentAgeMs, int segmentCount, long diskQuota) {
+        this.segmentSize = segmentSize;
+        this.segmentAgeMs = segmentAgeMs;
+        this.segmentCount = Math.max(1, segmentCount);
+        this.diskQuota = diskQuota;
+    }
+
+    /**
+     * @return true if active segment of given size and open time should be closed
+     */
+    public boolean shouldRotate(long size, long openedAt, long now) {
+        return size >= segmentSize || now - openedAt >= segmentAgeMs;
+    }
+
+    /**
+     * @return log directory or null if storage is not available
+     */
+    public static File getDir() {
+        Context context = HyperApp.getInstance().getApplicationContext();
+        File root = context != null ? context.getExternalFilesDir(null) : null;
+        if (root == null)
+            return null;
+        File dir = new File(root, DIR_NAME);
+        if (!dir.exists() && !dir.mkdirs())
+            return null;
+        return dir;
+    }
+
+    /**
+     * @return all segments, compressed or not, oldest first
+     */
+    public static List<File> list() {
+        File dir = getDir();
+        if (dir == null)
+            return new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files == null)
+            return new ArrayList<>();
+        List<File> segments = new ArrayList<>();
+        for (File file : files) {
+            if (sequence(file) >= 0)
+                segments.add(file);
+        }
+        Collections.sort(segments, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long s1 = sequence(f1);
+                long s2 = sequence(f2);
+                return s1 < s2 ? -1 : (s1 == s2 ? 0 : 1);
+            }
+        });
+        return segments;
+    }
+
+    /**
+     * @return true if segment is gzip compressed
+     */
+    public static boolean isCompressed(File segment) {
+        return segment.getName().endsWith(SUFFIX + GZ_SUFFIX);
+    }
+
+    /**
+     * Select segment to write to. Everything older than it may be compressed or evicted.
+     *
+     * @param rotate true to always start a new segment
+     * @return newest uncompressed segment that can be appended to, or new segment file
+     */
+    public File openActive(boolean rotate) {
+        File dir = getDir();
+        if (dir == null)
+            return null;
+        List<File> segments = list();
+        long next = 0;
+        if (!segments.isEmpty()) {
+            File last = segments.get(segments.size() - 1);
+            next = sequence(last) + 1;
+            if (!rotate && !isCompressed(last) && last.length() < segmentSize) {
+                next = sequence(last);
+            }
+        }
+        activeSequence = next;
+        return new File(dir, String.format(Locale.US, "%s%06d%s", PREFIX, next, SUFFIX));
+    }
+
+    /**
+     * Compress closed segments and evict oldest ones on the background thread
+     */
+    public void compact() {
+        getCompressor().execute(new Runnable() {
+            @Override
+            public void run() {
+                for (File segment : list()) {
+                    if (sequence(segment) < activeSequence && !isCompressed(segment))
+                        compress(segment);
+                }
+                evict();
+            }
+        });
+    }
+
+    private synchronized ExecutorService getCompressor() {
+        if (compressor == null) {
+            compressor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread t = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+                            r.run();
+                        }
+                    }, TAG);
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return compressor;
+    }
+
+    private void compress(File segment) {
+        File tmp = new File(segment.getPath() + GZ_SUFFIX + TMP_SUFFIX);
+        File target = new File(segment.getPath() + GZ_SUFFIX);
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            in = new FileInputStream(segment);
+            out = new GZIPOutputStream(new FileOutputStream(tmp), BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            out.close();
+            out = null;
+            if (tmp.renameTo(target)) {
+                boolean del = segment.delete();
+                if (!del)
+                    Log.w(TAG, "compress: cannot delete " + segment);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "compress: " + segment, e);
+        } finally {
+            closeQuietly(in);
+            closeQuietly(out);
+            if (tmp.exists())
+                tmp.delete();
+        }
+    }
+
+    private void evict() {
+        List<File> segments = list();
+        long total = 0;
+        for (File segment : segments)
+            total += segment.length();
+        int count = segments.size();
+        for (File segment : segments) {
+            if (count <= segmentCount && total <= diskQuota)
+                break;
+            if (sequence(segment) >= activeSequence)
+                continue;
+            long length = segment.length();
+            if (segment.delete()) {
+                total -= length;
+                count--;
+            }
+        }
+    }
+
+    private static long sequence(File file) {
+        String name = file.getName();
+        if (!name.startsWith(PREFIX))
+            return -1;
+        int end = name.indexOf(SUFFIX, PREFIX.length());
+        if (end < 0 || !(name.endsWith(SUFFIX) || name.endsWith(SUFFIX + GZ_SUFFIX)))
+            return -1;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.hyperether.toolbox.log;
+
+import android.app.Service;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.Process;
+
+import com.hyperether.toolbox.HyperLog;
+
+/**
+ * Single log writer for all app processes. Runs in the main process and receives entries
+ * forwarded by {@link HyperLogRemoteSink} from other processes. Entries are passed to the
+ * shared sinks of the main process, so only one file handle writes the log and entries from all
+ * processes are stored in arrival order.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogService extends Service {
+
+    private static final String TAG = HyperLogService.class.getSimpleName();
+
+    static final int MSG_ENTRIES = 1;
+
+    static final String KEY_PROCESS = "process";
+    static final String KEY_TIMESTAMPS = "timestamps";
+    static final String KEY_LEVELS = "levels";
+    static final String KEY_TAGS = "tags";
+    static final String KEY_METHODS = "methods";
+    static final String KEY_MESSAGES = "messages";
+    static final String KEY_THREADS = "threads";
+    static final String KEY_FLAGS = "flags";
+    static final String KEY_FINGERPRINTS = "fingerprints";
+    static final String KEY_TRACES = "traces";
+
+    private HandlerThread thread;
+    private Messenger messenger;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        messenger = new Messenger(new IncomingHandler(thread.getLooper()));
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return messenger.getBinder();
+    }
+
+    @Override
+    public void onDestroy() {
+        HyperLog.getInstance().flush();
+        thread.quit();
+        super.onDestroy();
+    }
+
+    private static void publish(Bundle data) {
+        String process = data.getString(KEY_PROCESS);
+        long[] timestamps = data.getLongArray(KEY_TIMESTAMPS);
+        int[] levels = data.getIntArray(KEY_LEVELS);
+        String[] tags = data.getStringArray(KEY_TAGS);
+        String[] methods = data.getStringArray(KEY_METHODS);
+        String[] messages = data.getStringArray(KEY_MESSAGES);
+        String[] threads = data.getStringArray(KEY_THREADS);
+        int[] flags = data.getIntArray(KEY_FLAGS);
+        long[] fingerprints = data.getLongArray(KEY_FINGERPRINTS);
+        String[] traces = data.getStringArray(KEY_TRACES);
+        if (timestamps == null || levels == null || tags == null || methods == null
+                || messages == null || threads == null || flags == null
+                || fingerprints == null || traces == null)
+            return;
+
+        HyperLogDispatcher dispatcher = HyperLog.getInstance().getDispatcher();
+        for (int i = 0; i < timestamps.length; i++) {
+            Throwable throwable = fingerprints[i] != 0
+                    ? new HyperLogRemoteThrowable(fingerprints[i], traces[i]) : null;
+            dispatcher.publish(timestamps[i], levels[i], tags[i], methods[i], messages[i],
+                    throwable, process + "/" + threads[i],
+                    flags[i] | HyperLogEntry.FLAG_REMOTE);
+        }
+    }
+
+    private static class IncomingHandler extends Handler {
+
+        IncomingHandler(Looper looper) {
+            super(looper);
+        }
+
+        @Override
+        public void handleMessage(Message msg) {
+            if (msg.what == MSG_ENTRIES)
+                publish(msg.getData());
+            else
+                super.handleMessage(msg);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.hyperether.toolbox.log;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+import com.hyperether.toolbox.network.HyperConnection;
+import com.hyperether.toolbox.streaming.HyperUploadTask;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ships log entries to a remote endpoint. Entries are appended as JSON lines to a spool file in
+ * the cache directory once per dispatcher batch, so nothing is lost while offline. Spool file is
+ * sealed into a gzip compressed batch when it gets big or old enough and batches are uploaded
+ * oldest first on a background thread when the network is available. Failed uploads are retried
+ * with exponential backoff, oldest batches are deleted when the spool goes over its quota.
+ * Accepts ERROR and WARN by default.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogShipper extends HyperLogSink implements HyperLogDispatcher.Ticker {
+
+    private static final String TAG = HyperLogShipper.class.getSimpleName();
+
+    public static final String DIR_NAME = "hyperlog-spool";
+
+    public static final long DEFAULT_BATCH_SIZE = 64 * 1024;
+    public static final long DEFAULT_BATCH_AGE_MS = 5 * 60 * 1000;
+    public static final long DEFAULT_SPOOL_QUOTA = 5 * 1024 * 1024;
+
+    private static final String SPOOL_FILE = "spool.jsonl";
+    private static final String BATCH_PREFIX = "batch-";
+    private static final String BATCH_SUFFIX = ".jsonl.gz";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String CONTENT_TYPE = "application/x-ndjson";
+    private static final int BUFFER_SIZE = 16 * 1024;
+    public static final long DEFAULT_MIN_BACKOFF_MS = 30 * 1000;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 60 * 60 * 1000;
+
+    private final String endpoint;
+    private final HyperUploadTask uploadTask = new HyperUploadTask();
+    private volatile long batchSize = DEFAULT_BATCH_SIZE;
+    private volatile long batchAgeMs = DEFAULT_BATCH_AGE_MS;
+    private volatile long spoolQuota = DEFAULT_SPOOL_QUOTA;
+    private volatile long minBackoffMs = DEFAULT_MIN_BACKOFF_MS;
+    private volatile long maxBackoffMs = DEFAULT_MAX_BACKOFF_MS;
+    private volatile boolean wifiOnly;
+
+    // written on the dispatcher thread only
+    private final StringBuilder pending = new StringBuilder();
+    private long spoolOpenedAt;
+    private boolean started;
+
+    private ScheduledExecutorService uploader;
+    private ScheduledFuture<?> scheduledUpload;
+    private long backoffMs;
+    private boolean shutdown;
+
+    /**
+     * @param endpoint url batches are POSTed to, body is gzip compressed newline delimited JSON
+     */
+    public HyperLogShipper(String endpoint) {
+        this.endpoint = endpoint;
+        setLevel(HyperLog.WARN);
+    }
+
+    /**
+     * If not set defaults are 64KB batches, sealed at least every 5 minutes, and 5MB spool
+     *
+     * @param batchSize  uncompressed size at which spool is sealed into a batch
+     * @param batchAgeMs max time entries wait in the spool before the batch is sealed
+     * @param spoolQuota max total size of sealed batches kept while offline
+     */
+    public void setLimits(long batchSize, long batchAgeMs, long spoolQuota) {
+        this.batchSize = batchSize;
+        this.batchAgeMs = batchAgeMs;
+        this.spoolQuota = spoolQuota;
+    }
+
+    /**
+     * If not set failed uploads are retried after 30 seconds, doubled up to 1 hour
+     *
+     * @param minBackoffMs delay before the first retry
+     * @param maxBackoffMs max delay between retries
+     */
+    public void setRetryBackoff(long minBackoffMs, long maxBackoffMs) {
+        this.minBackoffMs = minBackoffMs;
+        this.maxBackoffMs = Math.max(minBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * @param wifiOnly true to upload only on Wifi connection
+     */
+    public void setWifiOnly(boolean wifiOnly) {
+        this.wifiOnly = wifiOnly;
+    }
+
+    /**
+     * @return spool directory or null if storage is not available
+     */
+    public static File getDir() {
+        Context context = HyperApp.getInstance().getApplicationContext();
+        if (context == null)
+            return null;
+        File dir = new File(context.getCacheDir(), DIR_NAME);
+        if (!dir.exists() && !dir.mkdirs())
+            return null;
+        return dir;
+    }
+
+    @Override
+    public void write(HyperLogEntry entry) {
+        pending.append("{\"ts\":").append(entry.timestamp);
+        appendField("level", HyperLogExporter.levelName(entry.level));
+        appendField("tag", entry.tag);
+        appendField("method", entry.method);
+        appendField("msg", entry.message);
+        appendField("thread", entry.thread);
+        if (entry.throwable != null) {
+            appendField("exception", entry.throwable.toString());
+            appendField("fingerprint",
+                    HyperLogFingerprint.toHex(HyperLogFingerprint.of(entry.throwable)));
+        }
+        pending.append("}\n");
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (pending.length() == 0)
+            return;
+        File dir = getDir();
+        if (dir == null) {
+            pending.setLength(0);
+            return;
+        }
+        if (!started) {
+            // batches left over from the previous run
+            started = true;
+            scheduleUpload(0);
+        }
+        File spool = new File(dir, SPOOL_FILE);
+        if (!spool.exists())
+            spoolOpenedAt = System.currentTimeMillis();
+        else if (spoolOpenedAt == 0)
+            spoolOpenedAt = spool.lastModified();
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(spool, true);
+            out.write(pending.toString().getBytes("UTF-8"));
+        } catch (IOException e) {
+            Log.e(TAG, "flush: spool write failed", e);
+        } finally {
+            pending.setLength(0);
+            closeQuietly(out);
+        }
+        if (spool.length() >= batchSize)
+            seal(dir, spool);
+    }
+
+    @Override
+    public synchronized void onTick(HyperLogDispatcher dispatcher, long now) {
+        if (spoolOpenedAt == 0 || now - spoolOpenedAt < batchAgeMs)
+            return;
+        File dir = getDir();
+        if (dir != null)
+            seal(dir, new File(dir, SPOOL_FILE));
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Seal spooled entries into a batch now and try to upload all batches, also if a retry is
+     * waiting for its backoff
+     */
+    public void ship() {
+        HyperLog.getInstance().flush();
+        File dir = getDir();
+        if (dir != null)
+            seal(dir, new File(dir, SPOOL_FILE));
+        uploadNow();
+    }
+
+    private synchronized void seal(File dir, File spool) {
+        spoolOpenedAt = 0;
+        if (!spool.exists() || spool.length() == 0)
+            return;
+        File batch = newBatchFile(dir, System.currentTimeMillis());
+        File tmp = new File(dir, batch.getName() + TMP_SUFFIX);
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            in = new FileInputStream(spool);
+            out = new GZIPOutputStream(new FileOutputStream(tmp), BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            out.close();
+            out = null;
+            if (tmp.renameTo(batch))
+                spool.delete();
+        } catch (IOException e) {
+            Log.e(TAG, "seal: " + spool.getName(), e);
+            tmp.delete();
+        } finally {
+            closeQuietly(in);
+            closeQuietly(out);
+        }
+        evict(dir);
+        scheduleUpload(0);
+    }
+
+    /**
+     * Sequence number keeps batches sealed within the same millisecond apart and in order
+     */
+    static File newBatchFile(File dir, long time) {
+        File batch;
+        int sequence = 0;
+        do {
+            batch = new File(dir, String.format(Locale.US, "%s%013d-%04d%s",
+                    BATCH_PREFIX, time, sequence++, BATCH_SUFFIX));
+        } while (batch.exists());
+        return batch;
+    }
+
+    private void evict(File dir) {
+        File[] batches = listBatches(dir);
+        long total = 0;
+        for (File batch : batches)
+            total += batch.length();
+        for (int i = 0; i < batches.length && total > spoolQuota; i++) {
+            total -= batches[i].length();
+            batches[i].delete();
+        }
+    }
+
+    private synchronized void scheduleUpload(long delayMs) {
+        if (shutdown || (scheduledUpload != null && !scheduledUpload.isDone()))
+            return;
+        scheduledUpload = getUploader().schedule(new Runnable() {
+            @Override
+            public void run() {
+                upload();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void uploadNow() {
+        // running upload is left alone, a waiting retry is replaced
+        if (scheduledUpload != null && scheduledUpload.getDelay(TimeUnit.MILLISECONDS) > 0)
+            scheduledUpload.cancel(false);
+        backoffMs = 0;
+        scheduleUpload(0);
+    }
+
+    private void upload() {
+        File dir = getDir();
+        if (dir == null)
+            return;
+        File[] batches = listBatches(dir);
+        if (batches.length == 0)
+            return;
+        if (!isNetworkAvailable()) {
+            retry();
+            return;
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Encoding", "gzip");
+        headers.put("X-Device-Model", Build.MODEL);
+        for (File batch : batches) {
+            int code;
+            try {
+                code = uploadTask.upload(endpoint, batch, CONTENT_TYPE, headers, "POST");
+            } catch (IOException e) {
+                Log.w(TAG, "upload: " + e.getMessage());
+                retry();
+                return;
+            }
+            if (code >= 200 && code < 300) {
+                batch.delete();
+            } else if (code >= 400 && code < 500 && code != 408 && code != 429) {
+                // server will never accept this batch
+                Log.w(TAG, "upload: " + batch.getName() + " rejected with " + code);
+                batch.delete();
+            } else {
+                retry();
+                return;
+            }
+        }
+        synchronized (this) {
+            backoffMs = 0;
+        }
+    }
+
+    private void retry() {
+        long delay;
+        synchronized (this) {
+            backoffMs = backoffMs == 0 ? minBackoffMs : Math.min(maxBackoffMs, backoffMs * 2);
+            delay = backoffMs;
+            // let scheduleUpload replace the running task
+            scheduledUpload = null;
+        }
+        scheduleUpload(delay);
+    }
+
+    /**
+     * Stop uploading, pending and running uploads are cancelled. Batches stay on disk and are
+     * uploaded by the next shipper.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (scheduledUpload != null) {
+            scheduledUpload.cancel(true);
+            scheduledUpload = null;
+        }
+        if (uploader != null) {
+            uploader.shutdownNow();
+            uploader = null;
+        }
+    }
+
+    /**
+     * @return true if batches can be uploaded now, checked before each upload run
+     */
+    protected boolean isNetworkAvailable() {
+        try {
+            return wifiOnly ? HyperConnection.isConnectedWifi()
+                    : HyperConnection.hasInternetAccess();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private synchronized ScheduledExecutorService getUploader() {
+        if (uploader == null) {
+            uploader = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread t = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, TAG);
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return uploader;
+    }
+
+    private static File[] listBatches(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return new File[0];
+        int count = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(BATCH_PREFIX) && name.endsWith(BATCH_SUFFIX))
+                files[count++] = file;
+        }
+        File[] batches = Arrays.copyOf(files, count);
+        // names carry zero padded timestamps, so name order is age order
+        Arrays.sort(batches);
+        return batches;
+    }
+
+    private void appendField(String name, String value) {
+        pending.append(",\"").append(name).append("\":");
+        if (value == null) {
+            pending.append("null");
+            return;
+        }
+        pending.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    pending.append("\\\"");
+                    break;
+                case '\\':
+                    pending.append("\\\\");
+                    break;
+                case '\n':
+                    pending.append("\\n");
+                    break;
+                case '\r':
+                    pending.append("\\r");
+                    break;
+                case '\t':
+                    pending.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        pending.append(String.format(Locale.US, "\\u%04x", (int) c));
+                    else
+                        pending.append(c);
+            }
+        }
+        pending.append('"');
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null)
+            return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
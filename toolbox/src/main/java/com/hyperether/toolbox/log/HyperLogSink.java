@@ -0,0 +1,83 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+/**
+ * Destination of {@link HyperLog} entries. All methods except level setters are called from
+ * the single {@link HyperLogDispatcher} thread, so sinks do not need their own locking.
+ * <p>
+ * Entry passed to {@link #write(HyperLogEntry)} is reused after the call returns, sink must
+ * copy anything it keeps.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public abstract class HyperLogSink {
+
+    private volatile int level = HyperLog.VERBOSE;
+
+    /**
+     * Set lowest severity this sink accepts
+     *
+     * @param level one of {@link HyperLog#ERROR}, {@link HyperLog#WARN}, {@link HyperLog#INFO},
+     *              {@link HyperLog#DEBUG}, {@link HyperLog#VERBOSE}
+     */
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Check if sink would write entry of given level. Called on the logging thread, must be
+     * cheap.
+     *
+     * @param level entry level
+     * @return true if accepted
+     */
+    public boolean isLoggable(int level) {
+        return HyperLog.priority(level) <= HyperLog.priority(this.level);
+    }
+
+    /**
+     * Check if sink would write entry of a tag with explicitly set level. Sinks that write only
+     * in debug mode skip that check here, level of the sink still applies.
+     *
+     * @param level entry level
+     * @return true if accepted
+     */
+    public boolean isLoggableForced(int level) {
+        return isLoggable(level);
+    }
+
+    /**
+     * Shared sinks write to a resource common to all app processes and also receive entries
+     * forwarded from other processes by {@link HyperLogService}. Other sinks see only entries of
+     * their own process.
+     *
+     * @return true for shared sink
+     */
+    public boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Write one entry
+     *
+     * @param entry entry, valid only during this call
+     */
+    public abstract void write(HyperLogEntry entry);
+
+    /**
+     * Called after each batch of entries
+     */
+    public void flush() {
+    }
+
+    /**
+     * Release resources. Sink may be written to again after this call.
+     */
+    public void close() {
+    }
+}
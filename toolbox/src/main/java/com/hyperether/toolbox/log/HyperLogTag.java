@@ -0,0 +1,59 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+/**
+ * Handle of one log tag in {@link HyperLogLevels}. Resolve it once, e.g. in a static field, and
+ * the level check costs one volatile read.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogTag {
+
+    static final int UNSET = 0;
+
+    private final String name;
+    private final HyperLogLevels levels;
+    private volatile int level = UNSET;
+
+    HyperLogTag(String name, HyperLogLevels levels) {
+        this.name = name;
+        this.levels = levels;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return level set for this tag or default level of the table
+     */
+    public int getLevel() {
+        int current = level;
+        return current != UNSET ? current : levels.getDefaultLevel();
+    }
+
+    /**
+     * @return true if level is set for this tag instead of inherited from the default
+     */
+    public boolean isOverridden() {
+        return level != UNSET;
+    }
+
+    /**
+     * @param level entry level
+     * @return true if entries of given level pass this tag's level
+     */
+    public boolean isLoggable(int level) {
+        return HyperLog.priority(level) <= HyperLog.priority(getLevel());
+    }
+
+    void setLevel(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,48 @@
+package com.hyperether.toolbox.log;
+
+import android.util.Log;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+
+/**
+ * Writes entries to logcat. Errors are always written, other levels only in debug mode or for
+ * tags with explicitly set level.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogcatSink extends HyperLogSink {
+
+    @Override
+    public boolean isLoggable(int level) {
+        return super.isLoggable(level)
+                && (level == HyperLog.ERROR || HyperApp.getInstance().isDebugActive());
+    }
+
+    @Override
+    public boolean isLoggableForced(int level) {
+        return super.isLoggable(level);
+    }
+
+    @Override
+    public void write(HyperLogEntry entry) {
+        String logTag = entry.tag + "." + entry.method;
+        switch (entry.level) {
+            case HyperLog.ERROR:
+                Log.e(logTag, entry.message);
+                break;
+            case HyperLog.WARN:
+                Log.w(logTag, entry.message);
+                break;
+            case HyperLog.DEBUG:
+                Log.d(logTag, entry.message);
+                break;
+            case HyperLog.VERBOSE:
+                Log.v(logTag, entry.message);
+                break;
+            case HyperLog.INFO:
+                Log.i(logTag, entry.message);
+                break;
+        }
+    }
+}
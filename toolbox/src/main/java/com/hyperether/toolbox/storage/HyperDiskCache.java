@@ -0,0 +1,397 @@
+package com.hyperether.toolbox.storage;
+
+import android.content.Context;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Journaled LRU file cache in the app cache directory, bounded by total size.
+ * <p>
+ * Every change and read is appended to a journal file, so the LRU order survives app restarts.
+ * Files are written to a temp file first and become visible only when committed, so a crash
+ * never leaves a half written entry. Journal is rewritten when it gets much longer than the
+ * entry list.
+ * <p>
+ * Each process gets its own directory, {@value #DIR_NAME} in the main process and
+ * {@value #DIR_NAME}-name in a process named package:name, so one process never deletes files
+ * another one is still writing.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperDiskCache {
+
+    private static final String TAG = HyperDiskCache.class.getSimpleName();
+
+    public static final String DIR_NAME = "hyper-disk-cache";
+    public static final long DEFAULT_MAX_SIZE = 50 * 1024 * 1024;
+
+    private static final String JOURNAL = "journal";
+    private static final String JOURNAL_TMP = "journal.tmp";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String CLEAN = "C";
+    private static final String READ = "R";
+    private static final String REMOVE = "D";
+    private static final int MIN_REBUILD_OPS = 2000;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static HyperDiskCache instance;
+
+    // access ordered, eldest entry is evicted first
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final File root;
+    private File dir;
+    private Writer journal;
+    private long size;
+    private long maxSize = DEFAULT_MAX_SIZE;
+    private int opCount;
+    private int tmpCount;
+    private volatile boolean enabled;
+
+    public static synchronized HyperDiskCache getInstance() {
+        if (instance == null) {
+            instance = new HyperDiskCache(null);
+        }
+        return instance;
+    }
+
+    /**
+     * @param root cache directory or null for the process directory in the app cache directory
+     */
+    HyperDiskCache(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Build key from any number of parts, e.g. url and width
+     *
+     * @return hex MD5 of the parts, usable as a file name
+     */
+    public static String key(String... parts) {
+        StringBuilder builder = new StringBuilder();
+        for (String part : parts)
+            builder.append(part).append('\n');
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest(builder.toString().getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return String.valueOf(builder.toString().hashCode() & 0xffffffffL);
+        }
+    }
+
+    /**
+     * If not enabled {@link com.hyperether.toolbox.graphic.HyperImageProcessing} does not use
+     * the cache. Disabled by default.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * If not set default is 50MB
+     *
+     * @param maxSize max total size of cached files in bytes
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        if (dir != null)
+            trim();
+    }
+
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return total size of cached files in bytes
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @param key key from {@link #key(String...)}
+     * @return cached file or null. File stays valid until it is evicted.
+     */
+    public synchronized File get(String key) {
+        if (!open())
+            return null;
+        if (!entries.containsKey(key))
+            return null;
+        File file = new File(dir, key);
+        if (!file.exists()) {
+            removeEntry(key);
+            return null;
+        }
+        entries.get(key);
+        log(READ, key, -1);
+        return file;
+    }
+
+    /**
+     * @return new temp file in the cache directory, commit it with {@link #commit(String, File)}
+     * @throws IOException if the cache directory is not available
+     */
+    public synchronized File createTempFile() throws IOException {
+        if (!open())
+            throw new IOException("Disk cache not available");
+        return new File(dir, System.nanoTime() + "-" + (tmpCount++) + TMP_SUFFIX);
+    }
+
+    /**
+     * Move written temp file into the cache
+     *
+     * @param key key from {@link #key(String...)}
+     * @param tmp file from {@link #createTempFile()}
+     * @return cached file or null on error
+     */
+    public synchronized File commit(String key, File tmp) {
+        if (!open() || !tmp.exists())
+            return null;
+        File file = new File(dir, key);
+        Long previous = entries.remove(key);
+        if (previous != null)
+            size -= previous;
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            file.delete();
+            if (previous != null)
+                log(REMOVE, key, -1);
+            return null;
+        }
+        long length = file.length();
+        entries.put(key, length);
+        size += length;
+        log(CLEAN, key, length);
+        trim();
+        // entry bigger than the whole cache is evicted right away
+        return entries.containsKey(key) ? file : null;
+    }
+
+    /**
+     * Copy stream into the cache. Stream is read to the end but not closed.
+     *
+     * @param key key from {@link #key(String...)}
+     * @param in  data
+     * @return cached file or null on error
+     * @throws IOException on read or write error
+     */
+    public File put(String key, InputStream in) throws IOException {
+        File tmp = createTempFile();
+        OutputStream out = new FileOutputStream(tmp);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+        } catch (IOException e) {
+            out.close();
+            tmp.delete();
+            throw e;
+        }
+        out.close();
+        return commit(key, tmp);
+    }
+
+    public synchronized void remove(String key) {
+        if (open() && entries.containsKey(key))
+            removeEntry(key);
+    }
+
+    /**
+     * Delete all cached files
+     */
+    public synchronized void clear() {
+        if (!open())
+            return;
+        for (String key : entries.keySet())
+            new File(dir, key).delete();
+        entries.clear();
+        size = 0;
+        rebuildJournal();
+    }
+
+    private boolean open() {
+        if (dir != null)
+            return true;
+        File cacheDir = root != null ? root : getProcessDir();
+        if (cacheDir == null)
+            return false;
+        if (!cacheDir.exists() && !cacheDir.mkdirs())
+            return false;
+        dir = cacheDir;
+        readJournal();
+        deleteUntracked();
+        rebuildJournal();
+        trim();
+        return true;
+    }
+
+    private static File getProcessDir() {
+        Context context = HyperApp.getInstance().getApplicationContext();
+        if (context == null)
+            return null;
+        HyperApp app = HyperApp.getInstance();
+        String name = app.isMainProcess() ? null : app.getProcessName();
+        if (name == null)
+            return new File(context.getCacheDir(), DIR_NAME);
+        String suffix = name.substring(name.lastIndexOf(':') + 1);
+        return new File(context.getCacheDir(),
+                DIR_NAME + "-" + suffix.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    private void readJournal() {
+        File file = new File(dir, JOURNAL);
+        if (!file.exists())
+            return;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length < 2)
+                    continue;
+                String key = parts[1];
+                if (CLEAN.equals(parts[0]) && parts.length == 3) {
+                    try {
+                        entries.put(key, Long.parseLong(parts[2]));
+                    } catch (NumberFormatException ignored) {
+                    }
+                } else if (READ.equals(parts[0])) {
+                    entries.get(key);
+                } else if (REMOVE.equals(parts[0])) {
+                    entries.remove(key);
+                }
+            }
+        } catch (IOException e) {
+            // keep what was read, the rest is deleted as untracked
+            HyperLog.getInstance().w(TAG, "readJournal", e.toString());
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        size = 0;
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            File cached = new File(dir, entry.getKey());
+            if (!cached.exists() || cached.length() != entry.getValue()) {
+                cached.delete();
+                it.remove();
+            } else {
+                size += entry.getValue();
+            }
+        }
+    }
+
+    private void deleteUntracked() {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            String name = file.getName();
+            if (!JOURNAL.equals(name) && !entries.containsKey(name))
+                file.delete();
+        }
+    }
+
+    private void rebuildJournal() {
+        closeJournal();
+        File tmp = new File(dir, JOURNAL_TMP);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(tmp), "UTF-8"));
+            try {
+                for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                    writer.write(CLEAN + " " + entry.getKey() + " " + entry.getValue() + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+            if (!tmp.renameTo(new File(dir, JOURNAL)))
+                throw new IOException("rename failed");
+            journal = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(new File(dir, JOURNAL), true), "UTF-8"));
+            opCount = 0;
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "rebuildJournal", e);
+            journal = null;
+        }
+    }
+
+    private void log(String op, String key, long length) {
+        if (journal == null)
+            return;
+        try {
+            journal.write(length >= 0 ? op + " " + key + " " + length + "\n"
+                    : op + " " + key + "\n");
+            journal.flush();
+        } catch (IOException e) {
+            HyperLog.getInstance().e(TAG, "log", e);
+        }
+        opCount++;
+        if (opCount >= MIN_REBUILD_OPS && opCount >= entries.size() * 2)
+            rebuildJournal();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            new File(dir, eldest.getKey()).delete();
+            size -= eldest.getValue();
+            it.remove();
+            log(REMOVE, eldest.getKey(), -1);
+        }
+    }
+
+    private void removeEntry(String key) {
+        Long length = entries.remove(key);
+        if (length != null)
+            size -= length;
+        new File(dir, key).delete();
+        log(REMOVE, key, -1);
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ignored) {
+            }
+            journal = null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.hyperether.toolbox.streaming;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In memory output stream with access to its buffer without a copy. Instances are reused
+ * through {@link #obtain()} and {@link #recycle(HyperByteArrayOutputStream)}, so encoding many
+ * images does not allocate a new growing buffer for each one.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperByteArrayOutputStream extends ByteArrayOutputStream {
+
+    private static final int INITIAL_SIZE = 256 * 1024;
+    // bigger buffers are left to the GC, they are rarely needed again
+    private static final int MAX_RETAINED_SIZE = INITIAL_SIZE * 4;
+    // enough for a quality search, best and current attempt of two formats
+    private static final int MAX_POOLED = 3;
+
+    private static final List<HyperByteArrayOutputStream> pool = new ArrayList<>();
+
+    public HyperByteArrayOutputStream(int size) {
+        super(size);
+    }
+
+    /**
+     * @return empty stream, give it back with {@link #recycle(HyperByteArrayOutputStream)}
+     */
+    public static HyperByteArrayOutputStream obtain() {
+        synchronized (pool) {
+            if (!pool.isEmpty())
+                return pool.remove(pool.size() - 1);
+        }
+        return new HyperByteArrayOutputStream(INITIAL_SIZE);
+    }
+
+    /**
+     * Give stream back for reuse, caller must not use it afterwards
+     *
+     * @param stream stream from {@link #obtain()}, may be null
+     */
+    public static void recycle(HyperByteArrayOutputStream stream) {
+        if (stream == null || stream.buf.length > MAX_RETAINED_SIZE)
+            return;
+        stream.reset();
+        synchronized (pool) {
+            if (pool.size() < MAX_POOLED && !pool.contains(stream))
+                pool.add(stream);
+        }
+    }
+
+    /**
+     * Drop pooled streams, e.g. on memory pressure. Streams in use are pooled again when
+     * recycled.
+     */
+    public static void trim() {
+        synchronized (pool) {
+            pool.clear();
+        }
+    }
+
+    /**
+     * @return internal buffer, valid bytes are from 0 to {@link #size()}
+     */
+    public synchronized byte[] getBuffer() {
+        return buf;
+    }
+}
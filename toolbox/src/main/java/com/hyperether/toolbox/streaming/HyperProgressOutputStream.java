@@ -0,0 +1,138 @@
+package com.hyperether.toolbox.streaming;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffered output stream that counts written bytes and reports progress each time the buffer
+ * is written out. Buffers are large and reused between streams, so small writes of encoders
+ * reach the target, e.g. a socket, in few big chunks without a new buffer per stream.
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperProgressOutputStream extends FilterOutputStream {
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final List<byte[]> pool = new ArrayList<>();
+
+    private final long total;
+    private final OnTransferProgress listener;
+    private byte[] buffer;
+    private int count;
+    private long written;
+
+    /**
+     * @param out      target stream
+     * @param total    total bytes for progress or -1 if not known
+     * @param listener progress listener, may be null
+     */
+    public HyperProgressOutputStream(OutputStream out, long total, OnTransferProgress listener) {
+        super(out);
+        this.total = total;
+        this.listener = listener;
+        this.buffer = obtainBuffer();
+    }
+
+    /**
+     * @return bytes written to the target so far
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length)
+            flushBuffer();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len >= buffer.length) {
+            // bigger than the buffer, no need to copy
+            flushBuffer();
+            out.write(b, off, len);
+            progress(len);
+            return;
+        }
+        if (len > buffer.length - count)
+            flushBuffer();
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flush and give the buffer back for reuse, target stream stays open
+     */
+    public void finish() throws IOException {
+        if (buffer == null)
+            return;
+        try {
+            flush();
+        } finally {
+            recycleBuffer(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Finish and close target stream
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            progress(count);
+            count = 0;
+        }
+    }
+
+    private void progress(int bytes) {
+        written += bytes;
+        if (listener != null)
+            listener.onProgress(written, total);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (buffer == null)
+            throw new IOException("Stream closed");
+    }
+
+    private static byte[] obtainBuffer() {
+        synchronized (pool) {
+            if (!pool.isEmpty())
+                return pool.remove(pool.size() - 1);
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    private static void recycleBuffer(byte[] buffer) {
+        synchronized (pool) {
+            if (pool.size() < MAX_POOLED_BUFFERS)
+                pool.add(buffer);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.hyperether.toolbox.streaming;
 
+import android.graphics.Bitmap;
 import android.webkit.MimeTypeMap;
 
 import com.hyperether.toolbox.HyperLog;
@@ -8,9 +9,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Map;
 
 /**
  * Hyper Upload Task class for uploading file to the corresponding url address
@@ -23,6 +26,24 @@ public class HyperUploadTask {
 
     private static final String TAG = HyperUploadTask.class.getSimpleName();
 
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 15000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 30000;
+
+    private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+    private int readTimeoutMs = DEFAULT_READ_TIMEOUT_MS;
+
+    /**
+     * If not set defaults are 15 seconds to connect and 30 seconds to read the response, so a
+     * stalled server does not block the uploading thread forever
+     *
+     * @param connectTimeoutMs connect timeout
+     * @param readTimeoutMs    read timeout
+     */
+    public void setTimeouts(int connectTimeoutMs, int readTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
     /**
      * Upload File To S3
      * @param address Pre-signed URL to upload
@@ -40,7 +61,7 @@ public class HyperUploadTask {
             String extension = filePath.substring(filePath.lastIndexOf('.') + 1);
             String mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension.toLowerCase());
             InputStream inputStream = new FileInputStream(file);
-            connection = (HttpURLConnection) url.openConnection();
+            connection = openConnection(url);
             connection.setRequestProperty(requestProperty, mimeType);
             connection.setDoOutput(true);
             connection.setRequestMethod(requestMethod);
@@ -73,4 +94,119 @@ public class HyperUploadTask {
             HyperLog.getInstance().e(TAG, "startUpload", e.getMessage());
         }
     }
+
+    /**
+     * Upload file as request body and return response code. Errors are thrown instead of
+     * logged, so it can be used by {@link com.hyperether.toolbox.HyperLog} itself.
+     *
+     * @param address       url
+     * @param file          file to upload
+     * @param contentType   Content-Type of the body
+     * @param headers       additional request headers, may be null
+     * @param requestMethod Request Method (e.g. "POST")
+     * @return HTTP response code
+     * @throws IOException on connection error
+     */
+    public int upload(String address,
+                      File file,
+                      String contentType,
+                      Map<String, String> headers,
+                      String requestMethod) throws IOException {
+        HttpURLConnection connection = openConnection(new URL(address));
+        InputStream inputStream = null;
+        try {
+            connection.setDoOutput(true);
+            connection.setRequestMethod(requestMethod);
+            connection.setRequestProperty("Content-Type", contentType);
+            if (headers != null) {
+                for (Map.Entry<String, String> header : headers.entrySet())
+                    connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            connection.setFixedLengthStreamingMode((int) file.length());
+            inputStream = new FileInputStream(file);
+            OutputStream out = connection.getOutputStream();
+            byte[] buf = new byte[8192];
+            int count;
+            while ((count = inputStream.read(buf)) != -1)
+                out.write(buf, 0, count);
+            out.close();
+            return connection.getResponseCode();
+        } finally {
+            if (inputStream != null)
+                inputStream.close();
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Compress bitmap and upload it as request body, without writing a file. Bitmap is
+     * compressed to a reused in memory buffer, so the body has a known length, e.g. for a
+     * pre-signed URL.
+     *
+     * @param address       url
+     * @param bitmap        bitmap to upload
+     * @param format        compress format, also sets Content-Type
+     * @param quality       compress quality
+     * @param headers       additional request headers, may be null
+     * @param requestMethod Request Method (e.g. "PUT")
+     * @param listener      upload progress listener, may be null
+     * @return HTTP response code
+     * @throws IOException on compress or connection error
+     */
+    public int upload(String address,
+                      Bitmap bitmap,
+                      Bitmap.CompressFormat format,
+                      int quality,
+                      Map<String, String> headers,
+                      String requestMethod,
+                      OnTransferProgress listener) throws IOException {
+        HyperByteArrayOutputStream body = HyperByteArrayOutputStream.obtain();
+        try {
+            if (!bitmap.compress(format, quality, body))
+                throw new IOException("Bitmap compress failed");
+            HttpURLConnection connection = openConnection(new URL(address));
+            try {
+                connection.setDoOutput(true);
+                connection.setRequestMethod(requestMethod);
+                connection.setRequestProperty("Content-Type", getContentType(format));
+                if (headers != null) {
+                    for (Map.Entry<String, String> header : headers.entrySet())
+                        connection.setRequestProperty(header.getKey(), header.getValue());
+                }
+                connection.setFixedLengthStreamingMode(body.size());
+                HyperProgressOutputStream out = new HyperProgressOutputStream(
+                        connection.getOutputStream(), body.size(), listener);
+                // chunks of the buffer size, so progress is reported while sending
+                byte[] data = body.getBuffer();
+                for (int off = 0; off < body.size(); off += HyperProgressOutputStream.BUFFER_SIZE) {
+                    out.write(data, off, Math.min(HyperProgressOutputStream.BUFFER_SIZE,
+                            body.size() - off));
+                }
+                out.close();
+                return connection.getResponseCode();
+            } finally {
+                connection.disconnect();
+            }
+        } finally {
+            HyperByteArrayOutputStream.recycle(body);
+        }
+    }
+
+    private HttpURLConnection openConnection(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        return connection;
+    }
+
+    /**
+     * @return mime type of compress format
+     */
+    public static String getContentType(Bitmap.CompressFormat format) {
+        if (format == Bitmap.CompressFormat.PNG)
+            return "image/png";
+        if (format == Bitmap.CompressFormat.JPEG)
+            return "image/jpeg";
+        return "image/webp";
+    }
 }
@@ -0,0 +1,14 @@
+package com.hyperether.toolbox.streaming;
+
+/**
+ * Interface to report progress of a write or upload
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public interface OnTransferProgress {
+    /**
+     * @param bytes bytes written so far
+     * @param total total bytes or -1 if not known
+     */
+    void onProgress(long bytes, long total);
+}
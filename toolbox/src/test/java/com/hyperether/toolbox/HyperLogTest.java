@@ -0,0 +1,163 @@
+package com.hyperether.toolbox;
+
+import com.hyperether.toolbox.log.HyperLogEntry;
+import com.hyperether.toolbox.log.HyperLogSink;
+import com.hyperether.toolbox.log.HyperLogTag;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Level checks and lazy overloads of {@link HyperLog}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogTest {
+
+    private static final String TAG = "HyperLogTest";
+
+    private final CaptureSink sink = new CaptureSink();
+    private HyperLog log;
+
+    @Before
+    public void setUp() {
+        log = HyperLog.getInstance();
+        log.addSink(sink);
+    }
+
+    @After
+    public void tearDown() {
+        log.removeSink(sink);
+        log.clearLevel(TAG);
+    }
+
+    @Test
+    public void lazyOverloadsFormatAtEveryLevel() {
+        log.e(TAG, "m", "e %d", 1L);
+        log.w(TAG, "m", "w %.1f", 2.5);
+        log.i(TAG, "m", "i %s", "three");
+        log.d(TAG, "m", "d %s %s", "four", 4);
+        log.vLazy(TAG, "m", new HyperLog.MessageSupplier() {
+            @Override
+            public String get() {
+                return "v five";
+            }
+        });
+
+        assertEquals(Arrays.asList("e 1", "w 2.5", "i three", "d four 4", "v five"),
+                sink.messages());
+    }
+
+    @Test
+    public void errorHasTheSameOverloadsAsOtherLevels() {
+        log.e(TAG, "m", "%d", 7L);
+        log.e(TAG, "m", "%.2f", 0.5);
+        log.e(TAG, "m", "%s", (Object) "object");
+        log.e(TAG, "m", "%s-%s", "a", "b");
+
+        assertEquals(Arrays.asList("7", "0.50", "object", "a-b"), sink.messages());
+    }
+
+    @Test
+    public void tagHandleOverloads() {
+        HyperLogTag tag = log.tag(TAG);
+
+        log.e(tag, "m", "e %d", 1L);
+        log.w(tag, "m", "w %.1f", 2.5);
+        log.i(tag, "m", "i %s", "three");
+        log.d(tag, "m", "d %s %s", "four", 4);
+        log.vLazy(tag, "m", new HyperLog.MessageSupplier() {
+            @Override
+            public String get() {
+                return "v five";
+            }
+        });
+        log.e(tag, "m", new IllegalStateException("failed"));
+
+        assertEquals(Arrays.asList("e 1", "w 2.5", "i three", "d four 4", "v five", "failed"),
+                sink.messages());
+    }
+
+    @Test
+    public void supplierIsNotCalledBelowTagLevel() {
+        log.setLevel(TAG, HyperLog.WARN);
+        final boolean[] called = {false};
+        HyperLog.MessageSupplier supplier = new HyperLog.MessageSupplier() {
+            @Override
+            public String get() {
+                called[0] = true;
+                return "debug";
+            }
+        };
+
+        log.dLazy(TAG, "m", supplier);
+        log.dLazy(log.tag(TAG), "m", supplier);
+
+        assertFalse(called[0]);
+        assertTrue(sink.messages().isEmpty());
+    }
+
+    @Test
+    public void isLoggableFollowsTagLevel() {
+        log.setLevel(TAG, HyperLog.INFO);
+
+        assertTrue(log.isLoggable(HyperLog.ERROR, TAG));
+        assertTrue(log.isLoggable(HyperLog.INFO, TAG));
+        assertFalse(log.isLoggable(HyperLog.DEBUG, TAG));
+        assertFalse(log.isLoggable(HyperLog.VERBOSE, log.tag(TAG)));
+    }
+
+    @Test
+    public void invalidFormatIsLoggedAsIs() {
+        log.i(TAG, "m", "%d items", "not a number");
+
+        assertEquals(Arrays.asList("%d items"), sink.messages());
+    }
+
+    @Test
+    public void messageWithExceptionKeepsThrowable() {
+        Exception ex = new IllegalStateException("boom");
+        log.e(TAG, "m", "upload failed", ex);
+        log.w(log.tag(TAG), "m", "retrying", ex);
+
+        assertEquals(Arrays.asList("upload failed", "retrying"), sink.messages());
+        assertEquals(Arrays.<Throwable>asList(ex, ex), sink.throwables());
+    }
+
+    /**
+     * Keeps messages of the test tag
+     */
+    private static class CaptureSink extends HyperLogSink {
+
+        private final List<String> messages = new ArrayList<>();
+        private final List<Throwable> throwables = new ArrayList<>();
+
+        @Override
+        public synchronized void write(HyperLogEntry entry) {
+            if (TAG.equals(entry.tag)) {
+                messages.add(entry.message);
+                throwables.add(entry.throwable);
+            }
+        }
+
+        List<String> messages() {
+            assertTrue(HyperLog.getInstance().flush());
+            synchronized (this) {
+                return new ArrayList<>(messages);
+            }
+        }
+
+        synchronized List<Throwable> throwables() {
+            return new ArrayList<>(throwables);
+        }
+    }
+}
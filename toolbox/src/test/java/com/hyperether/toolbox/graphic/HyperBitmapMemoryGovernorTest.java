@@ -0,0 +1,89 @@
+package com.hyperether.toolbox.graphic;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Sample size budget of {@link HyperBitmapMemoryGovernor}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperBitmapMemoryGovernorTest {
+
+    private static final int MB = 1024 * 1024;
+
+    private final HyperBitmapMemoryGovernor governor = HyperBitmapMemoryGovernor.getInstance();
+
+    @Before
+    public void setUp() {
+        governor.enable(new ContextWrapper(null) {
+            @Override
+            public Context getApplicationContext() {
+                return this;
+            }
+
+            @Override
+            public Object getSystemService(String name) {
+                return null;
+            }
+
+            @Override
+            public void registerComponentCallbacks(ComponentCallbacks callback) {
+            }
+
+            @Override
+            public void unregisterComponentCallbacks(ComponentCallbacks callback) {
+            }
+        });
+        governor.setBudget(MB);
+    }
+
+    @After
+    public void tearDown() {
+        governor.disable();
+    }
+
+    @Test
+    public void fittingDecodeKeepsSampleSize() {
+        // 500 x 500 RGB_565 is under 1MB
+        assertEquals(1, governor.adjustSampleSize(500, 500, 1, 2));
+        assertEquals(4, governor.adjustSampleSize(2000, 2000, 4, 2));
+    }
+
+    @Test
+    public void sampleSizeIsRaisedUntilDecodeFits() {
+        // 2000 x 2000 needs 8MB at sample 1, 2MB at 2 and 0.5MB at 4
+        assertEquals(4, governor.adjustSampleSize(2000, 2000, 1, 2));
+        assertEquals(4, governor.adjustSampleSize(2000, 2000, 2, 2));
+    }
+
+    @Test
+    public void bytesPerPixelCount() {
+        // 1000 x 1000 pixels fit 1MB at one byte per pixel only
+        assertEquals(1, governor.adjustSampleSize(1000, 1000, 1, 1));
+        assertEquals(2, governor.adjustSampleSize(1000, 1000, 1, 2));
+        assertEquals(2, governor.adjustSampleSize(1000, 1000, 1, 4));
+        assertEquals(4, governor.adjustSampleSize(2000, 2000, 1, 4));
+    }
+
+    @Test
+    public void sampleSizeStopsAtImageSize() {
+        governor.setBudget(0);
+
+        assertEquals(4, governor.adjustSampleSize(4, 4, 1, 4));
+    }
+
+    @Test
+    public void disabledGovernorKeepsSampleSize() {
+        governor.disable();
+
+        assertEquals(1, governor.adjustSampleSize(10000, 10000, 1, 4));
+    }
+}
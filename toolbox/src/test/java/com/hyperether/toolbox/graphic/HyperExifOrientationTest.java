@@ -0,0 +1,182 @@
+package com.hyperether.toolbox.graphic;
+
+import android.media.ExifInterface;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * JPEG header parsing of {@link HyperExifOrientation} on synthetic images
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperExifOrientationTest {
+
+    private static final int SOI = 0xD8;
+    private static final int APP0 = 0xE0;
+    private static final int APP1 = 0xE1;
+    private static final int DQT = 0xDB;
+    private static final int SOS = 0xDA;
+
+    @Test
+    public void littleEndianOrientation() throws IOException {
+        byte[] jpeg = jpeg(segment(APP1, exif(true, 6)));
+
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_90, read(jpeg));
+    }
+
+    @Test
+    public void bigEndianOrientation() throws IOException {
+        byte[] jpeg = jpeg(segment(APP1, exif(false, 8)));
+
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_270, read(jpeg));
+    }
+
+    @Test
+    public void segmentsBeforeExifAreSkipped() throws IOException {
+        byte[] jfif = {'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0};
+        byte[] xmp = "http://ns.adobe.com/xap/1.0/\0<x:xmpmeta/>".getBytes("US-ASCII");
+        byte[] jpeg = jpeg(segment(APP0, jfif), segment(APP1, xmp),
+                segment(APP1, exif(false, 3)));
+
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_180, read(jpeg));
+    }
+
+    @Test
+    public void imageWithoutExifIsNormal() throws IOException {
+        byte[] jpeg = jpeg(segment(APP0, new byte[14]), segment(DQT, new byte[65]),
+                segment(SOS, new byte[10]));
+
+        assertEquals(ExifInterface.ORIENTATION_NORMAL, read(jpeg));
+    }
+
+    @Test
+    public void exifAfterScanIsNotRead() throws IOException {
+        byte[] jpeg = jpeg(segment(SOS, new byte[10]), segment(APP1, exif(true, 6)));
+
+        assertEquals(ExifInterface.ORIENTATION_NORMAL, read(jpeg));
+    }
+
+    @Test
+    public void invalidOrientationIsNormal() throws IOException {
+        assertEquals(ExifInterface.ORIENTATION_NORMAL, read(jpeg(segment(APP1, exif(true, 42)))));
+    }
+
+    @Test
+    public void exifWithoutOrientationIsNormal() throws IOException {
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.write("Exif\0\0".getBytes("US-ASCII"));
+        tiff.write(new byte[]{'I', 'I', 42, 0, 8, 0, 0, 0});
+        // one entry, image width
+        tiff.write(new byte[]{1, 0, 0x00, 0x01, 3, 0, 1, 0, 0, 0, 0x40, 0, 0, 0});
+        tiff.write(new byte[4]);
+
+        assertEquals(ExifInterface.ORIENTATION_NORMAL,
+                read(jpeg(segment(APP1, tiff.toByteArray()))));
+    }
+
+    @Test
+    public void paddedMarkersAreAccepted() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(SOI);
+        out.write(0xFF);
+        out.write(segment(APP1, exif(true, 6)));
+
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_90, read(out.toByteArray()));
+    }
+
+    @Test
+    public void otherFormatIsUndefined() throws IOException {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+        assertEquals(ExifInterface.ORIENTATION_UNDEFINED, read(png));
+    }
+
+    @Test
+    public void streamIsReadToExifOnly() throws IOException {
+        byte[] jpeg = jpeg(segment(APP1, exif(true, 6)), segment(DQT, new byte[100]));
+        ByteArrayInputStream in = new ByteArrayInputStream(jpeg);
+
+        HyperExifOrientation.readJpeg(in);
+
+        assertEquals(4 + 100, in.available());
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptedMarkerFails() throws IOException {
+        read(new byte[]{(byte) 0xFF, (byte) SOI, 0x12, 0x34});
+    }
+
+    private static int read(byte[] data) throws IOException {
+        return HyperExifOrientation.readJpeg(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * @return APP1 payload with a TIFF header and one IFD holding the orientation
+     */
+    private static byte[] exif(boolean little, int orientation) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("Exif\0\0".getBytes("US-ASCII"));
+        out.write(little ? 'I' : 'M');
+        out.write(little ? 'I' : 'M');
+        writeShort(out, 42, little);
+        writeInt(out, 8, little);
+        writeShort(out, 2, little);
+        // make, ascii, pointing outside the segment is fine, value is not read
+        writeShort(out, 0x010F, little);
+        writeShort(out, 2, little);
+        writeInt(out, 6, little);
+        writeInt(out, 0x100, little);
+        writeShort(out, 0x0112, little);
+        writeShort(out, 3, little);
+        writeInt(out, 1, little);
+        writeShort(out, orientation, little);
+        writeShort(out, 0, little);
+        writeInt(out, 0, little);
+        return out.toByteArray();
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(marker);
+        writeShort(out, payload.length + 2, false);
+        out.write(payload, 0, payload.length);
+        return out.toByteArray();
+    }
+
+    private static byte[] jpeg(byte[]... segments) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(SOI);
+        for (byte[] segment : segments)
+            out.write(segment, 0, segment.length);
+        return out.toByteArray();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value, boolean little) {
+        if (little) {
+            out.write(value & 0xFF);
+            out.write(value >> 8 & 0xFF);
+        } else {
+            out.write(value >> 8 & 0xFF);
+            out.write(value & 0xFF);
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value, boolean little) {
+        if (little) {
+            writeShort(out, value & 0xFFFF, true);
+            writeShort(out, value >>> 16, true);
+        } else {
+            writeShort(out, value >>> 16, false);
+            writeShort(out, value & 0xFFFF, false);
+        }
+    }
+}
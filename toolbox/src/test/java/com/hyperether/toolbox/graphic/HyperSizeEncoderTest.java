@@ -0,0 +1,150 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Quality search of {@link HyperSizeEncoder} with an encoder whose size follows the quality
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperSizeEncoderTest {
+
+    private static final Bitmap.CompressFormat JPEG = Bitmap.CompressFormat.JPEG;
+
+    @Test
+    public void highestFittingQualityIsChosen() {
+        LinearEncoder encoder = new LinearEncoder(100);
+
+        HyperSizeEncoder.Result result = HyperSizeEncoder.search(encoder, JPEG, 5050, 0);
+
+        assertTrue(result.fits());
+        assertEquals(50, result.getQuality());
+        assertEquals(5000, result.getSize());
+        assertEquals(JPEG, result.getFormat());
+        // chosen attempt is kept, not encoded again
+        assertEquals(5000, result.toByteArray().length);
+        result.recycle();
+    }
+
+    @Test
+    public void searchStopsWithinTolerance() {
+        LinearEncoder encoder = new LinearEncoder(100);
+
+        HyperSizeEncoder.Result result = HyperSizeEncoder.search(encoder, JPEG, 10000, 0.1f);
+
+        assertEquals(95, result.getQuality());
+        assertTrue(result.getSize() >= 9000);
+        assertEquals(4, encoder.qualities.size());
+        result.recycle();
+    }
+
+    @Test
+    public void searchTakesFewAttempts() {
+        LinearEncoder encoder = new LinearEncoder(100);
+
+        HyperSizeEncoder.Result result = HyperSizeEncoder.search(encoder, JPEG, 7333, 0);
+
+        assertEquals(73, result.getQuality());
+        // binary search over 91 qualities
+        assertTrue(encoder.qualities.toString(), encoder.qualities.size() <= 7);
+        result.recycle();
+    }
+
+    @Test
+    public void maxQualityWhenEverythingFits() {
+        LinearEncoder encoder = new LinearEncoder(10);
+
+        HyperSizeEncoder.Result result = HyperSizeEncoder.search(encoder, JPEG,
+                Integer.MAX_VALUE, 0.1f);
+
+        assertTrue(result.fits());
+        assertEquals(HyperSizeEncoder.MAX_QUALITY, result.getQuality());
+        result.recycle();
+    }
+
+    @Test
+    public void smallestEncodingWhenNothingFits() {
+        LinearEncoder encoder = new LinearEncoder(100);
+
+        HyperSizeEncoder.Result result = HyperSizeEncoder.search(encoder, JPEG, 500, 0.1f);
+
+        assertFalse(result.fits());
+        assertEquals(HyperSizeEncoder.MIN_QUALITY, result.getQuality());
+        assertEquals(HyperSizeEncoder.MIN_QUALITY * 100, result.getSize());
+        result.recycle();
+    }
+
+    @Test
+    public void fittingResultIsBetter() {
+        HyperSizeEncoder.Result fits = HyperSizeEncoder.search(new LinearEncoder(100), JPEG,
+                2000, 0);
+        HyperSizeEncoder.Result over = HyperSizeEncoder.search(new LinearEncoder(300), JPEG,
+                2000, 0);
+
+        assertTrue(HyperSizeEncoder.isBetter(fits, over));
+        assertFalse(HyperSizeEncoder.isBetter(over, fits));
+        fits.recycle();
+        over.recycle();
+    }
+
+    @Test
+    public void higherQualityIsBetter() {
+        HyperSizeEncoder.Result high = HyperSizeEncoder.search(new LinearEncoder(50), JPEG,
+                4000, 0);
+        HyperSizeEncoder.Result low = HyperSizeEncoder.search(new LinearEncoder(100), JPEG,
+                4000, 0);
+
+        assertEquals(80, high.getQuality());
+        assertEquals(40, low.getQuality());
+        assertTrue(HyperSizeEncoder.isBetter(high, low));
+        high.recycle();
+        low.recycle();
+    }
+
+    @Test
+    public void smallerIsBetterWhenNothingFits() {
+        HyperSizeEncoder.Result small = HyperSizeEncoder.search(new LinearEncoder(100), JPEG,
+                10, 0);
+        HyperSizeEncoder.Result big = HyperSizeEncoder.search(new LinearEncoder(200), JPEG,
+                10, 0);
+
+        assertTrue(HyperSizeEncoder.isBetter(small, big));
+        assertFalse(HyperSizeEncoder.isBetter(big, small));
+        small.recycle();
+        big.recycle();
+    }
+
+    /**
+     * Writes bytesPerQuality * quality bytes
+     */
+    private static class LinearEncoder implements HyperSizeEncoder.Encoder {
+
+        final List<Integer> qualities = new ArrayList<>();
+        private final int bytesPerQuality;
+
+        LinearEncoder(int bytesPerQuality) {
+            this.bytesPerQuality = bytesPerQuality;
+        }
+
+        @Override
+        public void encode(int quality, OutputStream out) {
+            qualities.add(quality);
+            try {
+                out.write(new byte[quality * bytesPerQuality]);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.hyperether.toolbox.graphic;
+
+import android.graphics.Rect;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tile grid and zoom sample size of {@link HyperTileDecoder}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperTileDecoderTest {
+
+    @Test
+    public void viewportInsideOneCellGivesOneTile() {
+        List<Rect> regions = HyperTileDecoder.getTileRegions(new Rect(10, 10, 100, 100), 512,
+                2000, 1000);
+
+        assertEquals(Arrays.asList(new Rect(0, 0, 512, 512)), regions);
+    }
+
+    @Test
+    public void viewportAcrossCellsGivesAlignedTilesRowByRow() {
+        List<Rect> regions = HyperTileDecoder.getTileRegions(new Rect(500, 500, 600, 600), 512,
+                2000, 2000);
+
+        assertEquals(Arrays.asList(
+                new Rect(0, 0, 512, 512), new Rect(512, 0, 1024, 512),
+                new Rect(0, 512, 512, 1024), new Rect(512, 512, 1024, 1024)), regions);
+    }
+
+    @Test
+    public void edgeTilesAreCutToImage() {
+        List<Rect> regions = HyperTileDecoder.getTileRegions(new Rect(900, 600, 1000, 700), 512,
+                1000, 700);
+
+        assertEquals(Arrays.asList(new Rect(512, 512, 1000, 700)), regions);
+    }
+
+    @Test
+    public void viewportStraddlingImageEdgeIsClipped() {
+        // viewport runs past the right and bottom edge and starts left of the image
+        List<Rect> regions = HyperTileDecoder.getTileRegions(new Rect(-200, 400, 1200, 900),
+                512, 1000, 700);
+
+        assertEquals(Arrays.asList(
+                new Rect(0, 0, 512, 512), new Rect(512, 0, 1000, 512),
+                new Rect(0, 512, 512, 700), new Rect(512, 512, 1000, 700)), regions);
+    }
+
+    @Test
+    public void viewportOutsideImageGivesNoTiles() {
+        assertTrue(HyperTileDecoder.getTileRegions(new Rect(1000, 0, 1200, 100), 512,
+                1000, 700).isEmpty());
+        assertTrue(HyperTileDecoder.getTileRegions(new Rect(-300, -300, -1, -1), 512,
+                1000, 700).isEmpty());
+    }
+
+    @Test
+    public void sampledCellsCoverMoreImage() {
+        // tile size 512 at sample size 2
+        List<Rect> regions = HyperTileDecoder.getTileRegions(new Rect(1000, 0, 1100, 100), 1024,
+                3000, 3000);
+
+        assertEquals(Arrays.asList(new Rect(0, 0, 1024, 1024), new Rect(1024, 0, 2048, 1024)),
+                regions);
+    }
+
+    @Test
+    public void sampleSizeChangesAtHalfAndQuarterScale() {
+        assertEquals(1, HyperTileDecoder.getSampleSize(1f));
+        assertEquals(1, HyperTileDecoder.getSampleSize(0.51f));
+        assertEquals(2, HyperTileDecoder.getSampleSize(0.5f));
+        assertEquals(2, HyperTileDecoder.getSampleSize(0.26f));
+        assertEquals(4, HyperTileDecoder.getSampleSize(0.25f));
+        assertEquals(4, HyperTileDecoder.getSampleSize(0.2f));
+    }
+
+    @Test
+    public void invalidScaleDecodesFullResolution() {
+        assertEquals(1, HyperTileDecoder.getSampleSize(0f));
+        assertEquals(1, HyperTileDecoder.getSampleSize(-1f));
+        assertEquals(1, HyperTileDecoder.getSampleSize(2f));
+    }
+}
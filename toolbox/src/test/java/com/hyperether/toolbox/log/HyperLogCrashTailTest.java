@@ -0,0 +1,74 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Capacity, order and dump of {@link HyperLogCrashTail}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogCrashTailTest {
+
+    @Test
+    public void keepsLastEntriesOldestFirst() throws IOException {
+        HyperLogCrashTail tail = new HyperLogCrashTail(4);
+        for (int i = 0; i < 10; i++)
+            tail.record(i, HyperLog.INFO, "Tag", "method", "entry " + i);
+
+        String[] lines = dump(tail, null).split("\n");
+
+        assertEquals(4, lines.length);
+        for (int i = 0; i < 4; i++)
+            assertTrue(lines[i], lines[i].endsWith("Tag.method: entry " + (6 + i)));
+    }
+
+    @Test
+    public void partlyFilledTailDumpsOnlyRecordedEntries() throws IOException {
+        HyperLogCrashTail tail = new HyperLogCrashTail(16);
+        tail.record(1, HyperLog.ERROR, "Tag", "method", "only one");
+
+        String dump = dump(tail, null);
+
+        assertEquals(1, dump.split("\n").length);
+        assertTrue(dump.contains(" ERROR ["));
+        assertTrue(dump.contains("[" + Thread.currentThread().getName() + "]"));
+    }
+
+    @Test
+    public void crashIsAppendedAfterEntries() throws IOException {
+        HyperLogCrashTail tail = new HyperLogCrashTail(4);
+        tail.record(1, HyperLog.WARN, "Tag", "method", "before crash");
+
+        String dump = dump(tail, new IllegalStateException("boom"));
+
+        assertTrue(dump.indexOf("before crash") < dump.indexOf(" CRASH [main]"));
+        assertTrue(dump.contains("java.lang.IllegalStateException: boom"));
+    }
+
+    @Test
+    public void infoAndAboveAreKeptByDefault() {
+        HyperLogCrashTail tail = new HyperLogCrashTail(4);
+
+        assertTrue(tail.isLoggable(HyperLog.INFO));
+        assertFalse(tail.isLoggable(HyperLog.DEBUG));
+
+        tail.setLevel(HyperLog.VERBOSE);
+        assertTrue(tail.isLoggable(HyperLog.VERBOSE));
+    }
+
+    private static String dump(HyperLogCrashTail tail, Throwable crash) throws IOException {
+        StringWriter out = new StringWriter();
+        Thread main = new Thread("main");
+        tail.dump(out, main, crash);
+        return out.toString();
+    }
+}
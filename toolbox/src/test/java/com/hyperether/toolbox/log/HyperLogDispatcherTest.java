@@ -0,0 +1,169 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fan out, flush and restart of {@link HyperLogDispatcher}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogDispatcherTest {
+
+    private final HyperLogDispatcher dispatcher = new HyperLogDispatcher(64);
+
+    @After
+    public void tearDown() {
+        dispatcher.shutdown(5000);
+    }
+
+    @Test
+    public void entriesReachSinksByLevel() {
+        RecordingSink all = new RecordingSink();
+        RecordingSink errors = new RecordingSink();
+        errors.setLevel(HyperLog.ERROR);
+        dispatcher.addSink(all);
+        dispatcher.addSink(errors);
+
+        publish(1, HyperLog.DEBUG);
+        publish(2, HyperLog.ERROR);
+        assertTrue(dispatcher.flush(5000));
+
+        assertEquals(2, all.timestamps().size());
+        assertEquals(1, errors.timestamps().size());
+        assertEquals(2L, errors.timestamps().get(0).longValue());
+        assertTrue(all.flushes > 0);
+    }
+
+    @Test
+    public void isLoggableAsksAllSinks() {
+        RecordingSink sink = new RecordingSink();
+        sink.setLevel(HyperLog.WARN);
+        dispatcher.addSink(sink);
+
+        assertTrue(dispatcher.isLoggable(HyperLog.ERROR));
+        assertFalse(dispatcher.isLoggable(HyperLog.INFO));
+    }
+
+    @Test
+    public void shutdownClosesSinksAndPublishRestarts() {
+        RecordingSink sink = new RecordingSink();
+        dispatcher.addSink(sink);
+
+        publish(1, HyperLog.INFO);
+        dispatcher.shutdown(5000);
+        assertEquals(1, sink.closes);
+
+        publish(2, HyperLog.INFO);
+        assertTrue(dispatcher.flush(5000));
+        assertEquals(2, sink.timestamps().size());
+    }
+
+    @Test
+    public void shutdownTimeoutDoesNotStartSecondConsumer() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void write(HyperLogEntry entry) {
+                if (entry.timestamp == 0) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                super.write(entry);
+            }
+        };
+        dispatcher.addSink(sink);
+        for (int i = 0; i < 20; i++)
+            publish(i, HyperLog.INFO);
+
+        // consumer is blocked in the sink, shutdown gives up waiting
+        dispatcher.shutdown(50);
+        for (int i = 20; i < 40; i++)
+            publish(i, HyperLog.INFO);
+        release.countDown();
+        assertTrue(dispatcher.flush(5000));
+
+        List<Long> timestamps = sink.timestamps();
+        assertEquals(40, timestamps.size());
+        for (int i = 0; i < 40; i++)
+            assertEquals(i, timestamps.get(i).longValue());
+        assertEquals(1, sink.threads.size());
+    }
+
+    @Test
+    public void fullRingCountsDroppedEntries() {
+        final CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void write(HyperLogEntry entry) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+                super.write(entry);
+            }
+        };
+        dispatcher.addSink(sink);
+
+        int accepted = 0;
+        for (int i = 0; i < 200; i++) {
+            if (publish(i, HyperLog.INFO))
+                accepted++;
+        }
+        release.countDown();
+
+        assertTrue(accepted < 200);
+        assertTrue(dispatcher.flush(5000));
+        // dropped entries are reported as one warning
+        assertEquals(accepted + 1, sink.timestamps().size());
+    }
+
+    private boolean publish(long timestamp, int level) {
+        return dispatcher.publish(timestamp, level, "tag", "method", "message", null, "thread");
+    }
+
+    private static class RecordingSink extends HyperLogSink {
+
+        private final List<Long> timestamps = new ArrayList<>();
+        final Set<Thread> threads = new HashSet<>();
+        volatile int flushes;
+        volatile int closes;
+
+        @Override
+        public void write(HyperLogEntry entry) {
+            synchronized (this) {
+                timestamps.add(entry.timestamp);
+                threads.add(Thread.currentThread());
+            }
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closes++;
+        }
+
+        synchronized List<Long> timestamps() {
+            return new ArrayList<>(timestamps);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Batch delivery of {@link HyperLogEventSink}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogEventSinkTest {
+
+    private final HyperLogEventSink sink = new HyperLogEventSink();
+    private final List<List<HyperLogEvent>> batches = new ArrayList<>();
+    private final HyperLog.OnLogBatchListener listener = new HyperLog.OnLogBatchListener() {
+        @Override
+        public void onLogs(List<HyperLogEvent> events) {
+            batches.add(events);
+        }
+    };
+
+    @Test
+    public void acceptsNothingWithoutListener() {
+        assertFalse(sink.isLoggable(HyperLog.ERROR));
+
+        sink.setOnLogBatchListener(listener);
+
+        assertTrue(sink.isLoggable(HyperLog.ERROR));
+        assertTrue(sink.isLoggable(HyperLog.INFO));
+        assertFalse(sink.isLoggable(HyperLog.DEBUG));
+    }
+
+    @Test
+    public void oneListPerBatch() {
+        sink.setOnLogBatchListener(listener);
+        Exception error = new Exception("failed");
+        HyperLogEntry entry = new HyperLogEntry();
+        entry.set(1, HyperLog.ERROR, "Tag", "method", "first", error, "worker");
+        sink.write(entry);
+        // entry is reused by the ring, event must keep its own copy
+        entry.set(2, HyperLog.WARN, "Tag", "method", "second", null, "worker");
+        sink.write(entry);
+        sink.flush();
+        sink.write(new HyperLogEntry(3, HyperLog.INFO, "Tag", "method", "third"));
+        sink.flush();
+
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(1, batches.get(1).size());
+        HyperLogEvent first = batches.get(0).get(0);
+        assertEquals(1, first.getTimestamp());
+        assertEquals(HyperLog.ERROR, first.getLevel());
+        assertEquals("first", first.getMessage());
+        assertEquals(error, first.getThrowable());
+        assertEquals("worker", first.getThread());
+        assertEquals("third", batches.get(1).get(0).getMessage());
+        assertNotSame(batches.get(0), batches.get(1));
+    }
+
+    @Test
+    public void emptyBatchIsNotDelivered() {
+        sink.setOnLogBatchListener(listener);
+
+        sink.flush();
+
+        assertTrue(batches.isEmpty());
+    }
+}
@@ -0,0 +1,135 @@
+package com.hyperether.toolbox.log;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Buffered writes and rotation of {@link HyperLogFileSink}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogFileSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final HyperLogFileSink sink = new HyperLogFileSink();
+
+    @Before
+    public void setUp() throws IOException {
+        final File root = folder.newFolder();
+        HyperApp.getInstance().setContext(new ContextWrapper(null) {
+            @Override
+            public Context getApplicationContext() {
+                return this;
+            }
+
+            @Override
+            public File getExternalFilesDir(String type) {
+                return root;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        sink.close();
+        HyperApp.getInstance().setContext(null);
+        HyperApp.getInstance().setDebugActive(false);
+    }
+
+    @Test
+    public void writesOnlyInDebugUnlessForced() {
+        HyperApp.getInstance().setDebugActive(false);
+        assertFalse(sink.isLoggable(HyperLog.ERROR));
+        assertTrue(sink.isLoggableForced(HyperLog.VERBOSE));
+
+        HyperApp.getInstance().setDebugActive(true);
+        assertTrue(sink.isLoggable(HyperLog.DEBUG));
+    }
+
+    @Test
+    public void entriesAreReadableAfterFlush() throws IOException {
+        sink.write(new HyperLogEntry(1, HyperLog.INFO, "Tag", "first", "one"));
+        sink.write(new HyperLogEntry(2, HyperLog.ERROR, "Tag", "second", "two"));
+        sink.flush();
+
+        List<HyperLogEntry> entries = readAll();
+        assertEquals(2, entries.size());
+        assertEquals("one", entries.get(0).message);
+        assertEquals("second", entries.get(1).method);
+    }
+
+    @Test
+    public void reopenedFileIsAppendedTo() throws IOException {
+        sink.write(new HyperLogEntry(1, HyperLog.INFO, "Tag", "m", "before close"));
+        sink.close();
+        sink.write(new HyperLogEntry(2, HyperLog.INFO, "Tag", "m", "after close"));
+        sink.flush();
+
+        assertEquals(1, HyperLogSegments.list().size());
+        List<HyperLogEntry> entries = readAll();
+        assertEquals(2, entries.size());
+        assertEquals("after close", entries.get(1).message);
+    }
+
+    @Test
+    public void fullSegmentIsRotated() throws Exception {
+        sink.getSegments().setLimits(64, 60000, 10, 1024 * 1024);
+        sink.write(new HyperLogEntry(1, HyperLog.INFO, "Tag", "m",
+                "long enough to fill the whole segment on its own"));
+        sink.flush();
+        sink.write(new HyperLogEntry(2, HyperLog.INFO, "Tag", "m", "next segment"));
+        sink.flush();
+
+        // closed segment is compressed in background
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!HyperLogSegments.isCompressed(HyperLogSegments.list().get(0))
+                && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        List<File> segments = HyperLogSegments.list();
+        assertEquals(2, segments.size());
+        assertTrue(HyperLogSegments.isCompressed(segments.get(0)));
+        assertEquals(2, readAll().size());
+    }
+
+    private static List<HyperLogEntry> readAll() throws IOException {
+        List<HyperLogEntry> entries = new ArrayList<>();
+        for (File segment : HyperLogSegments.list()) {
+            InputStream in = new BufferedInputStream(new FileInputStream(segment));
+            if (HyperLogSegments.isCompressed(segment))
+                in = new GZIPInputStream(in);
+            HyperLogFormat.Decoder decoder = new HyperLogFormat.Decoder(in);
+            try {
+                HyperLogEntry entry;
+                while ((entry = decoder.next()) != null)
+                    entries.add(entry);
+            } finally {
+                decoder.close();
+            }
+        }
+        return entries;
+    }
+}
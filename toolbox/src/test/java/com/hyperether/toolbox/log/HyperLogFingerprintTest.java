@@ -0,0 +1,169 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exception fingerprints of {@link HyperLogFingerprint} and trace records of
+ * {@link HyperLogFormat}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogFingerprintTest {
+
+    @Test
+    public void sameFailureHasSameFingerprint() {
+        assertEquals(HyperLogFingerprint.of(fail("first")), HyperLogFingerprint.of(fail("first")));
+    }
+
+    @Test
+    public void messageIsIgnored() {
+        assertEquals(HyperLogFingerprint.of(fail("id 1")), HyperLogFingerprint.of(fail("id 2")));
+    }
+
+    @Test
+    public void lineNumbersAreIgnored() {
+        Throwable first = exception("Boom", frame("Foo", "run", 10));
+        Throwable moved = exception("Boom", frame("Foo", "run", 42));
+
+        assertEquals(HyperLogFingerprint.of(first), HyperLogFingerprint.of(moved));
+    }
+
+    @Test
+    public void framesAndClassesChangeFingerprint() {
+        long base = HyperLogFingerprint.of(exception("Boom", frame("Foo", "run", 1)));
+
+        assertNotEquals(base, HyperLogFingerprint.of(exception("Boom", frame("Foo", "stop", 1))));
+        assertNotEquals(base, HyperLogFingerprint.of(exception("Boom", frame("Bar", "run", 1))));
+        Throwable other = new IllegalStateException("Boom");
+        other.setStackTrace(new StackTraceElement[]{frame("Foo", "run", 1)});
+        assertNotEquals(base, HyperLogFingerprint.of(other));
+    }
+
+    @Test
+    public void causesChangeFingerprint() {
+        Throwable plain = exception("Boom", frame("Foo", "run", 1));
+        Throwable wrapped = exception("Boom", frame("Foo", "run", 1));
+        wrapped.initCause(exception("Cause", frame("Bar", "read", 1)));
+
+        assertNotEquals(HyperLogFingerprint.of(plain), HyperLogFingerprint.of(wrapped));
+    }
+
+    @Test
+    public void generatedClassNamesAreNormalized() {
+        assertEquals("com.app.Foo",
+                HyperLogFingerprint.normalizeClass("com.app.Foo$$Lambda$12/0x0123"));
+        assertEquals("com.app.Foo",
+                HyperLogFingerprint.normalizeClass("com.app.Foo$$ExternalSyntheticLambda3"));
+        assertEquals("com.sun.proxy.$Proxy",
+                HyperLogFingerprint.normalizeClass("com.sun.proxy.$Proxy17"));
+        assertEquals("com.app.Foo$Inner", HyperLogFingerprint.normalizeClass("com.app.Foo$Inner"));
+
+        assertEquals(
+                HyperLogFingerprint.of(exception("Boom", frame("Foo$$Lambda$1/0x01", "run", 1))),
+                HyperLogFingerprint.of(exception("Boom", frame("Foo$$Lambda$7/0x99", "run", 1))));
+    }
+
+    @Test
+    public void remoteThrowableKeepsFingerprint() {
+        HyperLogRemoteThrowable remote = new HyperLogRemoteThrowable(0x1234L,
+                "java.lang.RuntimeException: Boom\n\tat Foo.run(Foo.java:1)\n");
+
+        assertEquals(0x1234L, HyperLogFingerprint.of(remote));
+        assertEquals("java.lang.RuntimeException: Boom", remote.toString());
+        assertEquals(remote.getTrace(), HyperLogFingerprint.trace(remote));
+    }
+
+    @Test
+    public void hexIsPadded() {
+        assertEquals("00000000000000ff", HyperLogFingerprint.toHex(0xff));
+        assertEquals("ffffffffffffffff", HyperLogFingerprint.toHex(-1));
+    }
+
+    @Test
+    public void repeatedExceptionIsWrittenOnce() throws IOException {
+        Throwable error = exception("Boom", frame("Foo", "run", 1));
+        HyperLogEntry first = thrown(1000, "failed", error);
+        HyperLogEntry same = thrown(2000, "failed", error);
+        HyperLogEntry repeats = thrown(3000, "failed", error);
+
+        byte[] one = HyperLogFormatTest.encode(Arrays.asList(first));
+        byte[] three = HyperLogFormatTest.encode(Arrays.asList(first, same, repeats));
+
+        // type byte, timestamp and one byte trace id per repeat
+        assertEquals(one.length + 2 * (1 + 8 + 1), three.length);
+
+        List<HyperLogEntry> read = HyperLogFormatTest.decode(three);
+        assertEquals(3, read.size());
+        long fingerprint = HyperLogFingerprint.of(error);
+        for (int i = 0; i < read.size(); i++) {
+            HyperLogEntry entry = read.get(i);
+            assertEquals(1000 * (i + 1), entry.timestamp);
+            assertEquals(HyperLog.ERROR, entry.level);
+            assertEquals("Tag", entry.tag);
+            assertEquals("method", entry.method);
+            assertEquals("failed", entry.message);
+            assertEquals(fingerprint, entry.fingerprint);
+        }
+    }
+
+    @Test
+    public void differentMessageIsNotRepeat() throws IOException {
+        Throwable error = exception("Boom", frame("Foo", "run", 1));
+
+        List<HyperLogEntry> read = HyperLogFormatTest.decode(HyperLogFormatTest.encode(
+                Arrays.asList(thrown(1, "first", error), thrown(2, "second", error))));
+
+        assertEquals("first", read.get(0).message);
+        assertEquals("second", read.get(1).message);
+        assertEquals(read.get(0).fingerprint, read.get(1).fingerprint);
+    }
+
+    @Test
+    public void traceIsReadOnce() throws IOException {
+        Throwable error = exception("Boom", frame("Foo", "run", 7));
+        HyperLogFormat.Decoder decoder = new HyperLogFormat.Decoder(
+                new ByteArrayInputStream(HyperLogFormatTest.encode(Arrays.asList(
+                        new HyperLogEntry(1, HyperLog.INFO, "Tag", "method", "plain"),
+                        thrown(2, "failed", error)))));
+
+        HyperLogEntry plain = decoder.next();
+        assertEquals(0, plain.fingerprint);
+        HyperLogEntry failed = decoder.next();
+        String trace = decoder.getTrace(failed.fingerprint);
+        assertTrue(trace, trace.startsWith("java.lang.RuntimeException: Boom"));
+        assertTrue(trace, trace.contains("Foo.run(Foo.java:7)"));
+        assertNull(decoder.next());
+    }
+
+    private static HyperLogEntry thrown(long timestamp, String message, Throwable error) {
+        HyperLogEntry entry = new HyperLogEntry();
+        entry.set(timestamp, HyperLog.ERROR, "Tag", "method", message, error, "main");
+        return entry;
+    }
+
+    private static Throwable fail(String message) {
+        return new IllegalArgumentException(message);
+    }
+
+    private static Throwable exception(String message, StackTraceElement... frames) {
+        RuntimeException exception = new RuntimeException(message);
+        exception.setStackTrace(frames);
+        return exception;
+    }
+
+    private static StackTraceElement frame(String className, String method, int line) {
+        return new StackTraceElement(className, method, className + ".java", line);
+    }
+}
@@ -0,0 +1,163 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trip of {@link HyperLogFormat} records
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogFormatTest {
+
+    @Test
+    public void entriesRoundTrip() throws IOException {
+        List<HyperLogEntry> written = Arrays.asList(
+                new HyperLogEntry(1000L, HyperLog.ERROR, "Tag", "method", "first"),
+                new HyperLogEntry(2000L, HyperLog.DEBUG, "Tag", "other", "second"),
+                new HyperLogEntry(3000L, HyperLog.INFO, "Other", "method",
+                        "\u010d\u0107\u017e\u0161\u0111 \u4e2d"),
+                new HyperLogEntry(4000L, HyperLog.WARN, null, null, ""));
+
+        List<HyperLogEntry> read = decode(encode(written));
+
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            HyperLogEntry expected = written.get(i);
+            HyperLogEntry actual = read.get(i);
+            assertEquals(expected.timestamp, actual.timestamp);
+            assertEquals(expected.level, actual.level);
+            assertEquals(expected.tag != null ? expected.tag : "", actual.tag);
+            assertEquals(expected.method != null ? expected.method : "", actual.method);
+            assertEquals(expected.message, actual.message);
+        }
+    }
+
+    @Test
+    public void stringsAreWrittenOncePerSession() throws IOException {
+        ByteArrayOutputStream once = new ByteArrayOutputStream();
+        HyperLogFormat.Encoder encoder = new HyperLogFormat.Encoder(once);
+        encoder.writeHeader();
+        encoder.startSession(0);
+        encoder.write(new HyperLogEntry(1, HyperLog.INFO, "SomeLongTagName", "someMethod", "a"));
+        int first = encoder.size();
+        encoder.write(new HyperLogEntry(2, HyperLog.INFO, "SomeLongTagName", "someMethod", "b"));
+        int second = encoder.size() - first;
+
+        // type, timestamp, level, two one byte ids, length and one char
+        assertEquals(1 + 8 + 1 + 1 + 1 + 1 + 1, second);
+    }
+
+    @Test
+    public void newSessionDefinesStringsAgain() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HyperLogFormat.Encoder encoder = new HyperLogFormat.Encoder(bytes);
+        encoder.writeHeader();
+        encoder.startSession(0);
+        encoder.write(new HyperLogEntry(1, HyperLog.INFO, "A", "m", "one"));
+        encoder.write(new HyperLogEntry(2, HyperLog.INFO, "B", "m", "two"));
+        // appended session, ids start from 0 again
+        encoder.startSession(10);
+        encoder.write(new HyperLogEntry(3, HyperLog.INFO, "B", "n", "three"));
+        encoder.flush();
+
+        List<HyperLogEntry> read = decode(bytes.toByteArray());
+
+        assertEquals(3, read.size());
+        assertEquals("B", read.get(2).tag);
+        assertEquals("n", read.get(2).method);
+        assertEquals("three", read.get(2).message);
+    }
+
+    @Test
+    public void incompleteLastRecordIsIgnored() throws IOException {
+        byte[] full = encode(Arrays.asList(
+                new HyperLogEntry(1, HyperLog.INFO, "T", "m", "kept"),
+                new HyperLogEntry(2, HyperLog.INFO, "T", "m", "cut off by a crash")));
+
+        List<HyperLogEntry> read = decode(Arrays.copyOf(full, full.length - 5));
+
+        assertEquals(1, read.size());
+        assertEquals("kept", read.get(0).message);
+    }
+
+    @Test
+    public void wrongMagicIsRejected() {
+        try {
+            new HyperLogFormat.Decoder(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 1}));
+            fail("decoder accepted a file that is not a log");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void newerVersionIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(HyperLogFormat.MAGIC);
+        out.writeByte(HyperLogFormat.VERSION + 1);
+        try {
+            new HyperLogFormat.Decoder(new ByteArrayInputStream(bytes.toByteArray()));
+            fail("decoder accepted an unknown version");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void varIntRoundTrip() throws IOException {
+        int[] values = {0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, -1};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int value : values)
+            HyperLogFormat.writeVarInt(out, value);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int value : values)
+            assertEquals(value, HyperLogFormat.readVarInt(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void emptyFileHasNoEntries() throws IOException {
+        HyperLogFormat.Decoder decoder = new HyperLogFormat.Decoder(
+                new ByteArrayInputStream(encode(new ArrayList<HyperLogEntry>())));
+        assertNull(decoder.next());
+    }
+
+    static byte[] encode(List<HyperLogEntry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HyperLogFormat.Encoder encoder = new HyperLogFormat.Encoder(bytes);
+        encoder.writeHeader();
+        encoder.startSession(0);
+        for (HyperLogEntry entry : entries)
+            encoder.write(entry);
+        encoder.close();
+        return bytes.toByteArray();
+    }
+
+    static List<HyperLogEntry> decode(byte[] data) throws IOException {
+        HyperLogFormat.Decoder decoder =
+                new HyperLogFormat.Decoder(new ByteArrayInputStream(data));
+        List<HyperLogEntry> entries = new ArrayList<>();
+        HyperLogEntry entry;
+        while ((entry = decoder.next()) != null)
+            entries.add(entry);
+        return entries;
+    }
+}
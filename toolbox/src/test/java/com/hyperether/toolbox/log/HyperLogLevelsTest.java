@@ -0,0 +1,109 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tag handles and levels of {@link HyperLogLevels}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogLevelsTest {
+
+    private final HyperLogLevels levels = new HyperLogLevels();
+
+    @Test
+    public void handlesAreInterned() {
+        HyperLogTag tag = levels.get("Net");
+
+        assertSame(tag, levels.get("Net"));
+        assertSame(tag, levels.get(new String("Net")));
+        assertNotSame(tag, levels.get("Db"));
+        assertEquals("Net", tag.getName());
+    }
+
+    @Test
+    public void nullTagHasNamedHandle() {
+        HyperLogTag tag = levels.get(null);
+
+        assertEquals("null", tag.getName());
+        assertSame(tag, levels.get(null));
+    }
+
+    @Test
+    public void tagsFollowDefaultLevel() {
+        HyperLogTag tag = levels.get("Net");
+        assertEquals(HyperLog.VERBOSE, tag.getLevel());
+        assertTrue(tag.isLoggable(HyperLog.VERBOSE));
+        assertFalse(tag.isOverridden());
+
+        levels.setDefaultLevel(HyperLog.WARN);
+
+        assertEquals(HyperLog.WARN, tag.getLevel());
+        assertTrue(tag.isLoggable(HyperLog.ERROR));
+        assertTrue(tag.isLoggable(HyperLog.WARN));
+        assertFalse(tag.isLoggable(HyperLog.INFO));
+        assertFalse(tag.isLoggable(HyperLog.DEBUG));
+        assertFalse(tag.isLoggable(HyperLog.VERBOSE));
+    }
+
+    @Test
+    public void tagLevelOverridesDefault() {
+        HyperLogTag tag = levels.get("Net");
+        HyperLogTag other = levels.get("Db");
+        levels.setDefaultLevel(HyperLog.ERROR);
+
+        levels.setLevel("Net", HyperLog.DEBUG);
+
+        assertTrue(tag.isOverridden());
+        assertTrue(tag.isLoggable(HyperLog.DEBUG));
+        assertFalse(tag.isLoggable(HyperLog.VERBOSE));
+        assertFalse(other.isOverridden());
+        assertFalse(other.isLoggable(HyperLog.WARN));
+    }
+
+    @Test
+    public void levelSetBeforeHandleIsResolved() {
+        levels.setLevel("Later", HyperLog.INFO);
+
+        HyperLogTag tag = levels.get("Later");
+
+        assertEquals(HyperLog.INFO, tag.getLevel());
+        assertTrue(tag.isOverridden());
+    }
+
+    @Test
+    public void clearedLevelFallsBackToDefault() {
+        HyperLogTag tag = levels.get("Net");
+        HyperLogTag other = levels.get("Db");
+        levels.setDefaultLevel(HyperLog.WARN);
+        levels.setLevel("Net", HyperLog.VERBOSE);
+        levels.setLevel("Db", HyperLog.ERROR);
+
+        levels.clearLevel("Net");
+
+        assertFalse(tag.isOverridden());
+        assertEquals(HyperLog.WARN, tag.getLevel());
+        assertEquals(HyperLog.ERROR, other.getLevel());
+
+        levels.clearLevels();
+
+        assertFalse(other.isOverridden());
+        assertEquals(HyperLog.WARN, other.getLevel());
+    }
+
+    @Test
+    public void priorityOrdersBySeverity() {
+        assertTrue(HyperLog.priority(HyperLog.ERROR) < HyperLog.priority(HyperLog.WARN));
+        assertTrue(HyperLog.priority(HyperLog.WARN) < HyperLog.priority(HyperLog.INFO));
+        assertTrue(HyperLog.priority(HyperLog.INFO) < HyperLog.priority(HyperLog.DEBUG));
+        assertTrue(HyperLog.priority(HyperLog.DEBUG) < HyperLog.priority(HyperLog.VERBOSE));
+    }
+}
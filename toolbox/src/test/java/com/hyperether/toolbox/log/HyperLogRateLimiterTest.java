@@ -0,0 +1,159 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Token bucket, sampling and suppressed summaries of {@link HyperLogRateLimiter}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogRateLimiterTest {
+
+    private final HyperLogRateLimiter limiter = new HyperLogRateLimiter();
+
+    @Test
+    public void nothingIsLimitedByDefault() {
+        for (int i = 0; i < 10000; i++)
+            assertTrue(limiter.allow(HyperLog.DEBUG, "tag", "method"));
+    }
+
+    @Test
+    public void burstIsAllowedThenLimited() {
+        limiter.setRateLimit(1, 5);
+
+        for (int i = 0; i < 5; i++)
+            assertTrue(limiter.allow(HyperLog.INFO, "tag", "method"));
+        assertFalse(limiter.allow(HyperLog.INFO, "tag", "method"));
+    }
+
+    @Test
+    public void tokensRefillOverTime() throws InterruptedException {
+        limiter.setRateLimit(20, 1);
+        assertTrue(limiter.allow(HyperLog.INFO, "tag", "method"));
+        assertFalse(limiter.allow(HyperLog.INFO, "tag", "method"));
+
+        Thread.sleep(120);
+
+        assertTrue(limiter.allow(HyperLog.INFO, "tag", "method"));
+    }
+
+    @Test
+    public void bucketsArePerTagAndMethod() {
+        limiter.setRateLimit(1, 1);
+
+        assertTrue(limiter.allow(HyperLog.INFO, "tag", "a"));
+        assertFalse(limiter.allow(HyperLog.INFO, "tag", "a"));
+        assertTrue(limiter.allow(HyperLog.INFO, "tag", "b"));
+        assertTrue(limiter.allow(HyperLog.INFO, "other", "a"));
+        assertTrue(limiter.allow(HyperLog.INFO, null, null));
+    }
+
+    @Test
+    public void zeroRateDisablesLimit() {
+        limiter.setRateLimit(1, 1);
+        limiter.setRateLimit(0, 1);
+
+        for (int i = 0; i < 100; i++)
+            assertTrue(limiter.allow(HyperLog.INFO, "tag", "method"));
+    }
+
+    @Test
+    public void samplingKeepsFractionOfOneLevel() {
+        limiter.setSampleRate(HyperLog.VERBOSE, 0.25f);
+
+        int kept = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (limiter.allow(HyperLog.VERBOSE, "tag", "method"))
+                kept++;
+        }
+
+        assertTrue("kept " + kept, kept > 4000 && kept < 6000);
+        assertTrue(limiter.allow(HyperLog.DEBUG, "tag", "method"));
+    }
+
+    @Test
+    public void samplingRateIsClamped() {
+        limiter.setSampleRate(HyperLog.DEBUG, -1f);
+        assertFalse(limiter.allow(HyperLog.DEBUG, "tag", "method"));
+
+        limiter.setSampleRate(HyperLog.DEBUG, 2f);
+        assertTrue(limiter.allow(HyperLog.DEBUG, "tag", "method"));
+    }
+
+    @Test
+    public void suppressedEntriesAreSummarizedOnTick() {
+        HyperLogDispatcher dispatcher = new HyperLogDispatcher(16);
+        RecordingSink sink = new RecordingSink(false);
+        dispatcher.addSink(sink);
+        limiter.setRateLimit(1, 1);
+        limiter.allow(HyperLog.INFO, "tag", "method");
+        limiter.allow(HyperLog.DEBUG, "tag", "method");
+        limiter.allow(HyperLog.WARN, "tag", "method");
+        limiter.allow(HyperLog.INFO, "tag", "method");
+
+        limiter.onTick(dispatcher, 1000);
+
+        assertEquals(1, sink.entries.size());
+        HyperLogEntry summary = sink.entries.get(0);
+        assertEquals("3 messages suppressed", summary.message);
+        // most severe suppressed level
+        assertEquals(HyperLog.WARN, summary.level);
+        assertEquals("tag", summary.tag);
+        assertEquals("method", summary.method);
+        assertFalse(summary.isForced());
+
+        limiter.onTick(dispatcher, 2000);
+        assertEquals(1, sink.entries.size());
+    }
+
+    @Test
+    public void summaryOfForcedTagIsForced() {
+        HyperLogDispatcher dispatcher = new HyperLogDispatcher(16);
+        // like logcat in a release build, writes only tags with explicitly set level
+        RecordingSink sink = new RecordingSink(true);
+        dispatcher.addSink(sink);
+        limiter.setSampleRate(HyperLog.VERBOSE, 0f);
+        limiter.allow(HyperLog.VERBOSE, "tag", "method", true);
+        limiter.allow(HyperLog.VERBOSE, "tag", "method", true);
+
+        limiter.onTick(dispatcher, 1000);
+
+        assertEquals(1, sink.entries.size());
+        assertEquals("2 messages sampled out", sink.entries.get(0).message);
+        assertTrue(sink.entries.get(0).isForced());
+    }
+
+    private static class RecordingSink extends HyperLogSink {
+
+        final List<HyperLogEntry> entries = new ArrayList<>();
+        private final boolean forcedOnly;
+
+        RecordingSink(boolean forcedOnly) {
+            this.forcedOnly = forcedOnly;
+        }
+
+        @Override
+        public boolean isLoggable(int level) {
+            return !forcedOnly && super.isLoggable(level);
+        }
+
+        @Override
+        public boolean isLoggableForced(int level) {
+            return super.isLoggable(level);
+        }
+
+        @Override
+        public void write(HyperLogEntry entry) {
+            entries.add(entry.copy());
+        }
+    }
+}
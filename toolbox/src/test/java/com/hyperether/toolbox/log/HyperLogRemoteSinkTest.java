@@ -0,0 +1,140 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Message splitting and entry truncation of {@link HyperLogRemoteSink}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogRemoteSinkTest {
+
+    @Test
+    public void parcelSizeIsPaddedUtf16() {
+        assertEquals(4, HyperLogRemoteSink.parcelSize(null));
+        // length, terminator char padded to 4
+        assertEquals(8, HyperLogRemoteSink.parcelSize(""));
+        assertEquals(8, HyperLogRemoteSink.parcelSize("a"));
+        assertEquals(12, HyperLogRemoteSink.parcelSize("ab"));
+        assertEquals(12, HyperLogRemoteSink.parcelSize("abc"));
+        assertEquals(4 + 2004, HyperLogRemoteSink.parcelSize(repeat('x', 1000)));
+    }
+
+    @Test
+    public void batchesAreSplitByBytes() {
+        List<HyperLogRemoteSink.Pending> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            items.add(pending(repeat('m', 100)));
+        int bytes = items.get(0).bytes;
+
+        int end = HyperLogRemoteSink.getBatchEnd(items, 0, bytes * 3);
+        assertEquals(3, end);
+        assertEquals(bytes * 3, HyperLogRemoteSink.getBytes(items, 0, end));
+        assertEquals(6, HyperLogRemoteSink.getBatchEnd(items, 3, bytes * 3 + bytes / 2));
+        assertEquals(10, HyperLogRemoteSink.getBatchEnd(items, 6, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void batchHasAtLeastOneEntry() {
+        List<HyperLogRemoteSink.Pending> items = new ArrayList<>();
+        items.add(pending(repeat('m', 1000)));
+        items.add(pending("small"));
+
+        assertEquals(1, HyperLogRemoteSink.getBatchEnd(items, 0, 10));
+        assertEquals(2, HyperLogRemoteSink.getBatchEnd(items, 1, 10));
+    }
+
+    @Test
+    public void bigEntryIsTruncatedOnWrite() {
+        HyperLogRemoteSink.Pending item = pending(repeat('m', 100 * 1024));
+
+        item.shrink(HyperLogRemoteSink.MAX_MESSAGE_BYTES);
+
+        assertTrue(item.bytes <= HyperLogRemoteSink.MAX_MESSAGE_BYTES);
+        assertTrue(item.entry.message.endsWith("...[truncated]"));
+        assertTrue(item.entry.message.startsWith("mmmm"));
+    }
+
+    @Test
+    public void shrinkSplitsRoomBetweenMessageAndTrace() {
+        HyperLogEntry entry = new HyperLogEntry();
+        entry.set(1, HyperLog.ERROR, "Tag", "method", repeat('m', 10000),
+                deepException(), "main");
+        HyperLogRemoteSink.Pending item = new HyperLogRemoteSink.Pending(entry);
+        int traceLength = item.trace.length();
+        assertTrue(traceLength > 4000);
+
+        item.shrink(HyperLogRemoteSink.MIN_ENTRY_BYTES * 4);
+
+        assertTrue(item.bytes <= HyperLogRemoteSink.MIN_ENTRY_BYTES * 4);
+        assertTrue(item.entry.message.length() > 500);
+        assertTrue(item.trace.length() < traceLength);
+        assertTrue(item.trace.endsWith("...[truncated]"));
+    }
+
+    @Test
+    public void smallEntryIsNotChanged() {
+        HyperLogRemoteSink.Pending item = pending("short");
+        int bytes = item.bytes;
+
+        item.shrink(HyperLogRemoteSink.MIN_ENTRY_BYTES);
+
+        assertEquals("short", item.entry.message);
+        assertEquals(bytes, item.bytes);
+    }
+
+    @Test
+    public void exceptionIsSentAsFingerprintAndTrace() {
+        RuntimeException error = new RuntimeException("Boom");
+        HyperLogEntry entry = new HyperLogEntry();
+        entry.set(1, HyperLog.ERROR, "Tag", "method", "failed", error, "main");
+
+        HyperLogRemoteSink.Pending item = new HyperLogRemoteSink.Pending(entry);
+
+        assertNull(item.entry.throwable);
+        assertEquals(HyperLogFingerprint.of(error), item.entry.fingerprint);
+        assertEquals(HyperLogFingerprint.trace(error), item.trace);
+        // source entry is reused by the ring buffer and is left alone
+        assertEquals(error, entry.throwable);
+    }
+
+    @Test
+    public void truncateKeepsMarkerWithinLimit() {
+        assertNull(HyperLogRemoteSink.truncate(null, 10));
+        assertEquals("short", HyperLogRemoteSink.truncate("short", 10));
+        String truncated = HyperLogRemoteSink.truncate(repeat('x', 100), 20);
+        assertEquals(20, truncated.length());
+        assertEquals("xxxxxx...[truncated]", truncated);
+    }
+
+    private static HyperLogRemoteSink.Pending pending(String message) {
+        HyperLogEntry entry = new HyperLogEntry();
+        entry.set(1, HyperLog.INFO, "Tag", "method", message, null, "main");
+        return new HyperLogRemoteSink.Pending(entry);
+    }
+
+    private static Throwable deepException() {
+        RuntimeException error = new RuntimeException("Boom");
+        StackTraceElement[] frames = new StackTraceElement[200];
+        for (int i = 0; i < frames.length; i++)
+            frames[i] = new StackTraceElement("com.app.Foo", "call" + i, "Foo.java", i);
+        error.setStackTrace(frames);
+        return error;
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++)
+            builder.append(c);
+        return builder.toString();
+    }
+}
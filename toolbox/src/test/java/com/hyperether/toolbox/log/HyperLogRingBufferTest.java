@@ -0,0 +1,150 @@
+package com.hyperether.toolbox.log;
+
+import com.hyperether.toolbox.HyperLog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ordering, capacity and concurrent producers of {@link HyperLogRingBuffer}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogRingBufferTest {
+
+    @Test
+    public void entriesAreDrainedInOrder() {
+        HyperLogRingBuffer ring = new HyperLogRingBuffer(8);
+        for (int i = 0; i < 5; i++)
+            assertTrue(publish(ring, i));
+
+        Collector collector = new Collector();
+        assertEquals(5, ring.drain(collector, 100));
+
+        for (int i = 0; i < 5; i++)
+            assertEquals(i, collector.timestamps.get(i).longValue());
+        assertFalse(ring.hasPending());
+        assertEquals(5, ring.getClaimed());
+        assertEquals(5, ring.getConsumed());
+    }
+
+    @Test
+    public void fullRingRejectsInsteadOfBlocking() {
+        // capacity is rounded up to a power of two
+        HyperLogRingBuffer ring = new HyperLogRingBuffer(3);
+        for (int i = 0; i < 4; i++)
+            assertTrue(publish(ring, i));
+        assertFalse(publish(ring, 4));
+
+        assertEquals(1, ring.drain(new Collector(), 1));
+        assertTrue(publish(ring, 5));
+    }
+
+    @Test
+    public void drainStopsAtMaxCount() {
+        HyperLogRingBuffer ring = new HyperLogRingBuffer(16);
+        for (int i = 0; i < 10; i++)
+            publish(ring, i);
+
+        Collector collector = new Collector();
+        assertEquals(4, ring.drain(collector, 4));
+        assertTrue(ring.hasPending());
+        assertEquals(6, ring.drain(collector, 100));
+        assertEquals(10, collector.timestamps.size());
+    }
+
+    @Test
+    public void slotsAreClearedAfterDrain() {
+        HyperLogRingBuffer ring = new HyperLogRingBuffer(2);
+        ring.publish(1, HyperLog.ERROR, "tag", "method", "message", new Exception(), "thread", 0);
+        final HyperLogEntry[] seen = new HyperLogEntry[1];
+
+        ring.drain(new HyperLogRingBuffer.Handler() {
+            @Override
+            public void onEntry(HyperLogEntry entry) {
+                seen[0] = entry;
+            }
+        }, 1);
+
+        assertNull(seen[0].message);
+        assertNull(seen[0].throwable);
+    }
+
+    @Test
+    public void concurrentProducersLoseNothing() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 5000;
+        final HyperLogRingBuffer ring = new HyperLogRingBuffer(1024);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        // full ring rejects, a producer that must not lose entries retries
+                        while (!publish(ring, (long) producer * perProducer + i))
+                            Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        final long[] last = new long[producers];
+        final boolean[] ordered = {true};
+        Arrays.fill(last, -1);
+        HyperLogRingBuffer.Handler handler = new HyperLogRingBuffer.Handler() {
+            @Override
+            public void onEntry(HyperLogEntry entry) {
+                int producer = (int) (entry.timestamp / perProducer);
+                // entries of one producer keep their order
+                ordered[0] &= entry.timestamp > last[producer];
+                last[producer] = entry.timestamp;
+            }
+        };
+        start.countDown();
+        long total = 0;
+        long deadline = System.currentTimeMillis() + 10000;
+        while (total < producers * perProducer && System.currentTimeMillis() < deadline)
+            total += ring.drain(handler, 256);
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(producers * perProducer, total);
+        assertTrue(ordered[0]);
+        for (int p = 0; p < producers; p++)
+            assertEquals((long) p * perProducer + perProducer - 1, last[p]);
+    }
+
+    private static boolean publish(HyperLogRingBuffer ring, long timestamp) {
+        return ring.publish(timestamp, HyperLog.INFO, "tag", "method", "message", null,
+                "thread", 0);
+    }
+
+    private static class Collector implements HyperLogRingBuffer.Handler {
+
+        final List<Long> timestamps = new ArrayList<>();
+
+        @Override
+        public void onEntry(HyperLogEntry entry) {
+            timestamps.add(entry.timestamp);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.hyperether.toolbox.log;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import com.hyperether.toolbox.HyperApp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rotation, compression and eviction of {@link HyperLogSegments}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogSegmentsTest {
+
+    private static final long WAIT_MS = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HyperLogSegments segments;
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        final File root = folder.newFolder();
+        HyperApp.getInstance().setContext(new ContextWrapper(null) {
+            @Override
+            public Context getApplicationContext() {
+                return this;
+            }
+
+            @Override
+            public File getExternalFilesDir(String type) {
+                return root;
+            }
+        });
+        dir = new File(root, HyperLogSegments.DIR_NAME);
+        segments = new HyperLogSegments();
+    }
+
+    @After
+    public void tearDown() {
+        HyperApp.getInstance().setContext(null);
+    }
+
+    @Test
+    public void rotatesBySizeAndAge() {
+        segments.setLimits(100, 1000, 5, 10000);
+
+        assertFalse(segments.shouldRotate(99, 0, 999));
+        assertTrue(segments.shouldRotate(100, 0, 0));
+        assertTrue(segments.shouldRotate(0, 0, 1000));
+    }
+
+    @Test
+    public void appendsToLastSegmentUntilItIsFull() throws IOException {
+        segments.setLimits(100, 1000, 5, 10000);
+
+        File first = segments.openActive(false);
+        assertEquals("log-000000.bin", first.getName());
+        write(first, 50);
+        assertEquals(first, segments.openActive(false));
+
+        write(first, 100);
+        assertEquals("log-000001.bin", segments.openActive(false).getName());
+    }
+
+    @Test
+    public void rotateStartsNewSegment() throws IOException {
+        File first = segments.openActive(false);
+        write(first, 10);
+
+        assertEquals("log-000001.bin", segments.openActive(true).getName());
+    }
+
+    @Test
+    public void closedSegmentsAreCompressed() throws Exception {
+        byte[] content = write(segments.openActive(true), 4096);
+        File active = segments.openActive(true);
+        write(active, 10);
+
+        segments.compact();
+
+        File compressed = new File(dir, "log-000000.bin.gz");
+        awaitCount(2);
+        assertTrue(compressed.exists());
+        assertFalse(new File(dir, "log-000000.bin").exists());
+        assertTrue(active.exists());
+        assertArrayEquals(content, gunzip(compressed));
+        List<File> list = HyperLogSegments.list();
+        assertTrue(HyperLogSegments.isCompressed(list.get(0)));
+        assertFalse(HyperLogSegments.isCompressed(list.get(1)));
+    }
+
+    @Test
+    public void oldestSegmentsAreEvictedOverCount() throws Exception {
+        segments.setLimits(1024, 60000, 3, Long.MAX_VALUE);
+        for (int i = 0; i < 5; i++)
+            write(segments.openActive(true), 100);
+        File active = segments.openActive(true);
+        write(active, 100);
+
+        segments.compact();
+
+        awaitCount(3);
+        List<File> list = HyperLogSegments.list();
+        assertEquals("log-000003.bin.gz", list.get(0).getName());
+        assertEquals(active, list.get(2));
+    }
+
+    @Test
+    public void oldestSegmentsAreEvictedOverQuota() throws Exception {
+        segments.setLimits(1024 * 1024, 60000, 100, 3000);
+        // random content does not compress, each segment stays about 1KB
+        for (int i = 0; i < 4; i++)
+            write(segments.openActive(true), 1000);
+        File active = segments.openActive(true);
+        write(active, 1000);
+
+        segments.compact();
+
+        awaitCount(2);
+        long total = 0;
+        for (File file : HyperLogSegments.list())
+            total += file.length();
+        assertTrue(total <= 3000);
+        assertTrue(active.exists());
+    }
+
+    @Test
+    public void activeSegmentIsNeverEvicted() throws Exception {
+        segments.setLimits(1024 * 1024, 60000, 1, 10);
+        write(segments.openActive(true), 100);
+        File active = segments.openActive(true);
+        write(active, 100);
+
+        segments.compact();
+
+        awaitCount(1);
+        assertEquals(active, HyperLogSegments.list().get(0));
+    }
+
+    private void awaitCount(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            List<File> list = HyperLogSegments.list();
+            boolean compressed = true;
+            for (int i = 0; i < list.size() - 1; i++)
+                compressed &= HyperLogSegments.isCompressed(list.get(i));
+            if (list.size() == count && compressed)
+                return;
+            Thread.sleep(10);
+        }
+        assertEquals(count, HyperLogSegments.list().size());
+    }
+
+    private static byte[] write(File file, int length) throws IOException {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        OutputStream out = new FileOutputStream(file, true);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return data;
+    }
+
+    private static byte[] gunzip(File file) throws IOException {
+        InputStream in = new GZIPInputStream(new FileInputStream(file));
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.hyperether.toolbox.log;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import com.hyperether.toolbox.HyperApp;
+import com.hyperether.toolbox.HyperLog;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Uploads of {@link HyperLogShipper} against a stub HTTP server
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperLogShipperTest {
+
+    private static final long WAIT_MS = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private final List<String> bodies = new ArrayList<>();
+    private final List<Long> requestTimes = new ArrayList<>();
+    private final AtomicInteger responseCode = new AtomicInteger(200);
+    private TestShipper shipper;
+
+    @Before
+    public void setUp() throws IOException {
+        final File cache = folder.newFolder();
+        HyperApp.getInstance().setContext(new ContextWrapper(null) {
+            @Override
+            public Context getApplicationContext() {
+                return this;
+            }
+
+            @Override
+            public File getCacheDir() {
+                return cache;
+            }
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/logs", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = "gzip".equals(exchange.getRequestHeaders()
+                        .getFirst("Content-Encoding"))
+                        ? read(new GZIPInputStream(exchange.getRequestBody())) : "";
+                synchronized (bodies) {
+                    bodies.add(body);
+                    requestTimes.add(System.currentTimeMillis());
+                }
+                exchange.sendResponseHeaders(responseCode.get(), -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        shipper = new TestShipper("http://127.0.0.1:" + server.getAddress().getPort()
+                + "/logs");
+    }
+
+    @After
+    public void tearDown() {
+        HyperLog.getInstance().setLogShipping(null);
+        shipper.shutdown();
+        server.stop(0);
+        HyperApp.getInstance().setContext(null);
+    }
+
+    @Test
+    public void batchIsUploadedAndDeleted() throws Exception {
+        log("first failure");
+        log("second failure");
+
+        shipper.ship();
+
+        awaitRequests(1);
+        awaitBatches(0);
+        String body = bodies.get(0);
+        assertTrue(body, body.contains("\"msg\":\"first failure\""));
+        assertTrue(body, body.contains("\"msg\":\"second failure\""));
+        assertEquals(2, body.split("\n").length);
+    }
+
+    @Test
+    public void serverErrorIsRetriedAfterBackoff() throws Exception {
+        shipper.setRetryBackoff(300, 1000);
+        responseCode.set(503);
+        log("kept on 503");
+
+        shipper.ship();
+
+        awaitRequests(1);
+        responseCode.set(200);
+        // batch stays until the retry
+        assertEquals(1, countBatches());
+        awaitRequests(2);
+        awaitBatches(0);
+        assertTrue(requestTimes.get(1) - requestTimes.get(0) >= 250);
+        assertEquals(bodies.get(0), bodies.get(1));
+    }
+
+    @Test
+    public void shipDoesNotWaitForPendingBackoff() throws Exception {
+        shipper.setRetryBackoff(60 * 60 * 1000, 60 * 60 * 1000);
+        responseCode.set(500);
+        log("first try fails");
+        shipper.ship();
+        awaitRequests(1);
+
+        responseCode.set(200);
+        shipper.ship();
+
+        awaitRequests(2);
+        awaitBatches(0);
+    }
+
+    @Test
+    public void rejectedBatchIsDropped() throws Exception {
+        responseCode.set(400);
+        log("malformed for the server");
+
+        shipper.ship();
+
+        awaitRequests(1);
+        awaitBatches(0);
+    }
+
+    @Test
+    public void batchesAreKeptWhileOffline() throws Exception {
+        shipper.setRetryBackoff(50, 50);
+        shipper.online = false;
+        log("written offline");
+        shipper.ship();
+        log("also offline");
+        shipper.ship();
+
+        Thread.sleep(300);
+        assertEquals(0, requestCount());
+        assertEquals(2, countBatches());
+
+        shipper.online = true;
+        awaitRequests(2);
+        awaitBatches(0);
+        assertTrue(bodies.get(0).contains("written offline"));
+        assertTrue(bodies.get(1).contains("also offline"));
+    }
+
+    @Test
+    public void oldestBatchesAreEvictedOverQuota() throws Exception {
+        shipper.online = false;
+        shipper.setLimits(HyperLogShipper.DEFAULT_BATCH_SIZE, HyperLogShipper.DEFAULT_BATCH_AGE_MS,
+                1);
+        log("evicted");
+        shipper.ship();
+
+        assertEquals(0, countBatches());
+    }
+
+    @Test
+    public void noUploadAfterShippingIsStopped() throws Exception {
+        HyperLog.getInstance().setLogShipper(shipper);
+        shipper.setRetryBackoff(100, 100);
+        responseCode.set(503);
+        log("retried until stopped");
+        shipper.ship();
+        awaitRequests(1);
+
+        HyperLog.getInstance().setLogShipping(null);
+        int count = requestCount();
+        Thread.sleep(500);
+
+        assertEquals(count, requestCount());
+        assertEquals(1, countBatches());
+    }
+
+    @Test
+    public void batchesSealedInSameMillisecondAreKept() throws Exception {
+        File dir = HyperLogShipper.getDir();
+        File first = HyperLogShipper.newBatchFile(dir, 42);
+        assertTrue(first.createNewFile());
+        File second = HyperLogShipper.newBatchFile(dir, 42);
+
+        assertEquals("batch-0000000000042-0000.jsonl.gz", first.getName());
+        assertEquals("batch-0000000000042-0001.jsonl.gz", second.getName());
+        assertTrue(first.getName().compareTo(second.getName()) < 0);
+    }
+
+    private void log(String message) {
+        shipper.write(new HyperLogEntry(System.currentTimeMillis(), HyperLog.ERROR, "Tag",
+                "method", message));
+        shipper.flush();
+    }
+
+    private int requestCount() {
+        synchronized (bodies) {
+            return bodies.size();
+        }
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (requestCount() < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(count, requestCount());
+    }
+
+    private void awaitBatches(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (countBatches() != count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(count, countBatches());
+    }
+
+    private static int countBatches() {
+        File[] files = HyperLogShipper.getDir().listFiles();
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(".jsonl.gz"))
+                count++;
+        }
+        return count;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return out.toString("UTF-8");
+    }
+
+    private static class TestShipper extends HyperLogShipper {
+
+        volatile boolean online = true;
+
+        TestShipper(String endpoint) {
+            super(endpoint);
+        }
+
+        @Override
+        protected boolean isNetworkAvailable() {
+            return online;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.hyperether.toolbox.storage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Journal replay, eviction and crash recovery of {@link HyperDiskCache}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = folder.newFolder();
+    }
+
+    @Test
+    public void journalReplayKeepsAccessOrder() throws IOException {
+        HyperDiskCache cache = new HyperDiskCache(dir);
+        put(cache, "a", 4);
+        put(cache, "b", 4);
+        put(cache, "c", 4);
+        assertNotNull(cache.get("a"));
+
+        // restart, eldest entry is now b
+        HyperDiskCache reopened = new HyperDiskCache(dir);
+        reopened.setMaxSize(8);
+
+        assertNull(reopened.get("b"));
+        assertNotNull(reopened.get("a"));
+        assertNotNull(reopened.get("c"));
+        assertEquals(8, reopened.size());
+        assertFalse(new File(dir, "b").exists());
+    }
+
+    @Test
+    public void removedEntryIsNotReplayed() throws IOException {
+        HyperDiskCache cache = new HyperDiskCache(dir);
+        put(cache, "a", 4);
+        put(cache, "b", 4);
+        cache.remove("a");
+
+        HyperDiskCache reopened = new HyperDiskCache(dir);
+
+        assertNull(reopened.get("a"));
+        assertNotNull(reopened.get("b"));
+        assertEquals(4, reopened.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws IOException {
+        HyperDiskCache cache = new HyperDiskCache(dir);
+        cache.setMaxSize(10);
+        put(cache, "a", 4);
+        put(cache, "b", 4);
+        assertNotNull(cache.get("a"));
+
+        put(cache, "c", 4);
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.size());
+    }
+
+    @Test
+    public void entryBiggerThanCacheIsNotKept() throws IOException {
+        HyperDiskCache cache = new HyperDiskCache(dir);
+        cache.setMaxSize(10);
+
+        assertNull(put(cache, "big", 11));
+
+        assertNull(cache.get("big"));
+        assertFalse(new File(dir, "big").exists());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void crashMidWriteLeavesNoEntry() throws IOException {
+        HyperDiskCache cache = new HyperDiskCache(dir);
+        put(cache, "a", 4);
+        // temp file written but never committed
+        File tmp = cache.createTempFile();
+        write(tmp, 3);
+        // file renamed but its journal line never written
+        write(new File(dir, "b"), 5);
+
+        HyperDiskCache reopened = new HyperDiskCache(dir);
+
+        assertNotNull(reopened.get("a"));
+        assertNull(reopened.get("b"));
+        assertFalse(tmp.exists());
+        assertFalse(new File(dir, "b").exists());
+        assertEquals(4, reopened.size());
+        assertEquals(Arrays.asList("a", "journal"), sortedNames());
+    }
+
+    @Test
+    public void truncatedEntryIsDropped() throws IOException {
+        HyperDiskCache cache = new HyperDiskCache(dir);
+        put(cache, "a", 4);
+        put(cache, "b", 4);
+        write(new File(dir, "a"), 2);
+
+        HyperDiskCache reopened = new HyperDiskCache(dir);
+
+        assertNull(reopened.get("a"));
+        assertNotNull(reopened.get("b"));
+        assertEquals(4, reopened.size());
+    }
+
+    private static File put(HyperDiskCache cache, String key, int length) throws IOException {
+        return cache.put(key, new ByteArrayInputStream(new byte[length]));
+    }
+
+    private static void write(File file, int length) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[length]);
+        } finally {
+            out.close();
+        }
+    }
+
+    private List<String> sortedNames() {
+        String[] names = dir.list();
+        assertTrue(names != null);
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+}
@@ -0,0 +1,227 @@
+package com.hyperether.toolbox.streaming;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Buffering and progress of {@link HyperProgressOutputStream}
+ *
+ * @version 1.0 - 17/10/2026
+ */
+public class HyperProgressOutputStreamTest {
+
+    private static final int BUFFER = HyperProgressOutputStream.BUFFER_SIZE;
+
+    @Test
+    public void smallWritesReachTargetInBufferChunks() throws IOException {
+        RecordingStream target = new RecordingStream();
+        HyperProgressOutputStream out = new HyperProgressOutputStream(target, -1, null);
+        byte[] expected = data(BUFFER * 2 + 100);
+
+        for (int i = 0; i < expected.length; i += 16)
+            out.write(expected, i, Math.min(16, expected.length - i));
+        out.finish();
+
+        assertArrayEquals(expected, target.toByteArray());
+        assertEquals(3, target.writes.size());
+        assertEquals(BUFFER, (int) target.writes.get(0));
+        assertEquals(BUFFER, (int) target.writes.get(1));
+        assertEquals(100, (int) target.writes.get(2));
+    }
+
+    @Test
+    public void singleBytesAreBuffered() throws IOException {
+        RecordingStream target = new RecordingStream();
+        HyperProgressOutputStream out = new HyperProgressOutputStream(target, -1, null);
+
+        for (int i = 0; i < BUFFER + 1; i++)
+            out.write(i);
+
+        assertEquals(1, target.writes.size());
+        assertEquals(BUFFER, out.getWritten());
+        out.flush();
+        assertEquals(BUFFER + 1, out.getWritten());
+        assertEquals(BUFFER + 1, target.size());
+    }
+
+    @Test
+    public void bigWriteIsNotCopied() throws IOException {
+        RecordingStream target = new RecordingStream();
+        HyperProgressOutputStream out = new HyperProgressOutputStream(target, -1, null);
+        byte[] big = data(BUFFER * 3);
+
+        out.write(new byte[]{1, 2, 3});
+        out.write(big);
+        out.finish();
+
+        // buffered bytes first, then the big write as is
+        assertEquals(2, target.writes.size());
+        assertEquals(3, (int) target.writes.get(0));
+        assertEquals(big.length, (int) target.writes.get(1));
+    }
+
+    @Test
+    public void progressIsReportedPerChunk() throws IOException {
+        final List<long[]> reports = new ArrayList<>();
+        long total = BUFFER * 2 + 10;
+        HyperProgressOutputStream out = new HyperProgressOutputStream(new ByteArrayOutputStream(),
+                total, new OnTransferProgress() {
+            @Override
+            public void onProgress(long bytes, long total) {
+                reports.add(new long[]{bytes, total});
+            }
+        });
+
+        out.write(data((int) total));
+        out.finish();
+
+        // one big write is passed through and reported once
+        assertEquals(1, reports.size());
+        assertEquals(total, reports.get(0)[0]);
+        assertEquals(total, reports.get(0)[1]);
+
+        reports.clear();
+        out = new HyperProgressOutputStream(new ByteArrayOutputStream(), -1,
+                new OnTransferProgress() {
+                    @Override
+                    public void onProgress(long bytes, long total) {
+                        reports.add(new long[]{bytes, total});
+                    }
+                });
+        for (int i = 0; i < 5; i++)
+            out.write(data(BUFFER / 2));
+        out.finish();
+
+        assertEquals(3, reports.size());
+        assertEquals(BUFFER, reports.get(0)[0]);
+        assertEquals(BUFFER * 2, reports.get(1)[0]);
+        assertEquals(BUFFER * 5 / 2, reports.get(2)[0]);
+        assertEquals(-1, reports.get(2)[1]);
+    }
+
+    @Test
+    public void finishKeepsTargetOpenAndCloseClosesIt() throws IOException {
+        RecordingStream target = new RecordingStream();
+        HyperProgressOutputStream out = new HyperProgressOutputStream(target, -1, null);
+        out.write(1);
+
+        out.finish();
+        assertEquals(1, target.size());
+        assertFalse(target.closed);
+
+        out.close();
+        assertTrue(target.closed);
+    }
+
+    @Test
+    public void writeAfterFinishFails() throws IOException {
+        HyperProgressOutputStream out = new HyperProgressOutputStream(new RecordingStream(), -1,
+                null);
+        out.finish();
+        try {
+            out.write(1);
+            fail("write after finish was accepted");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void pooledStreamIsReusedEmpty() {
+        HyperByteArrayOutputStream first = HyperByteArrayOutputStream.obtain();
+        first.write(7);
+        HyperByteArrayOutputStream.recycle(first);
+
+        HyperByteArrayOutputStream second = HyperByteArrayOutputStream.obtain();
+
+        assertSame(first, second);
+        assertEquals(0, second.size());
+        HyperByteArrayOutputStream.recycle(second);
+    }
+
+    @Test
+    public void pooledStreamIsRecycledOnce() {
+        HyperByteArrayOutputStream stream = HyperByteArrayOutputStream.obtain();
+        HyperByteArrayOutputStream.recycle(stream);
+        HyperByteArrayOutputStream.recycle(stream);
+
+        HyperByteArrayOutputStream first = HyperByteArrayOutputStream.obtain();
+        HyperByteArrayOutputStream second = HyperByteArrayOutputStream.obtain();
+
+        assertNotSame(first, second);
+        HyperByteArrayOutputStream.recycle(first);
+        HyperByteArrayOutputStream.recycle(second);
+    }
+
+    @Test
+    public void hugeBufferIsNotPooled() {
+        HyperByteArrayOutputStream huge = HyperByteArrayOutputStream.obtain();
+        huge.write(new byte[5 * 1024 * 1024], 0, 5 * 1024 * 1024);
+        HyperByteArrayOutputStream.recycle(huge);
+
+        HyperByteArrayOutputStream next = HyperByteArrayOutputStream.obtain();
+
+        assertNotSame(huge, next);
+        HyperByteArrayOutputStream.recycle(next);
+    }
+
+    @Test
+    public void trimEmptiesPool() {
+        HyperByteArrayOutputStream first = HyperByteArrayOutputStream.obtain();
+        HyperByteArrayOutputStream.recycle(first);
+
+        HyperByteArrayOutputStream.trim();
+        HyperByteArrayOutputStream next = HyperByteArrayOutputStream.obtain();
+
+        assertNotSame(first, next);
+        HyperByteArrayOutputStream.recycle(next);
+    }
+
+    @Test
+    public void bufferIsSharedWithoutCopy() {
+        HyperByteArrayOutputStream stream = new HyperByteArrayOutputStream(16);
+        stream.write(new byte[]{1, 2, 3}, 0, 3);
+
+        byte[] buffer = stream.getBuffer();
+
+        assertTrue(buffer.length >= 3);
+        assertEquals(3, stream.size());
+        assertEquals(2, buffer[1]);
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++)
+            data[i] = (byte) (i * 31);
+        return data;
+    }
+
+    private static class RecordingStream extends ByteArrayOutputStream {
+
+        final List<Integer> writes = new ArrayList<>();
+        boolean closed;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes.add(len);
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}